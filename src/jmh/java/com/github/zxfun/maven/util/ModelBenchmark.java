@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the maven model helpers of {@link MavenUtils}, which work in memory only.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+  @Param("100")
+  public int dependencies;
+
+  private List<Dependency> unresolved;
+  private List<Dependency> managed;
+  private Properties properties;
+
+  @Setup
+  public void setUp() {
+    properties = new Properties();
+    properties.setProperty("synthetic.version", "${base.version}.1");
+    properties.setProperty("base.version", "1.0");
+    properties.setProperty("synthetic.scope", "compile");
+    unresolved = new ArrayList<Dependency>();
+    managed = new ArrayList<Dependency>();
+    for (int i = 0; i < dependencies; i++) {
+      Dependency dependency = new Dependency();
+      dependency.setGroupId(SyntheticRepository.GROUP_ID);
+      dependency.setArtifactId(SyntheticRepository.artifactId(i));
+      dependency.setVersion("${synthetic.version}");
+      dependency.setScope("${synthetic.scope}");
+      unresolved.add(dependency);
+
+      Dependency managedDependency = new Dependency();
+      managedDependency.setGroupId(SyntheticRepository.GROUP_ID);
+      managedDependency.setArtifactId(SyntheticRepository.artifactId(i));
+      managedDependency.setVersion("2.0");
+      managedDependency.setClassifier("tests");
+      Exclusion exclusion = new Exclusion();
+      exclusion.setGroupId(SyntheticRepository.GROUP_ID);
+      exclusion.setArtifactId("*");
+      managedDependency.addExclusion(exclusion);
+      managed.add(managedDependency);
+    }
+  }
+
+  @Benchmark
+  public List<Dependency> resolve() {
+    List<Dependency> results = new ArrayList<Dependency>(unresolved.size());
+    for (Dependency dependency : unresolved) {
+      results.add(MavenUtils.resolve(dependency, properties));
+    }
+    return results;
+  }
+
+  @Benchmark
+  public List<Dependency> resolveAll() {
+    return MavenUtils.resolveAll(unresolved, properties);
+  }
+
+  @Benchmark
+  public List<Dependency> merge() {
+    List<Dependency> results = new ArrayList<Dependency>(unresolved.size());
+    for (int i = 0; i < unresolved.size(); i++) {
+      results.add(MavenUtils.merge(managed.get(i), unresolved.get(i)));
+    }
+    return results;
+  }
+
+}
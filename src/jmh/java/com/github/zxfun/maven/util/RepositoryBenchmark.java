@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import com.typesafe.config.ConfigFactory;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.version.Version;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks of the repository operations of {@link MavenClient} against a {@link SyntheticRepository} served through
+ * {@code file://}. Warm benchmarks run against a populated local repository with a long lived client, cold benchmarks
+ * start every iteration with an empty local repository and a new client.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RepositoryBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Repository {
+
+    @Param("200")
+    public int artifacts;
+
+    @Param("4")
+    public int fanOut;
+
+    @Param("5")
+    public int depth;
+
+    @Param("3")
+    public int versions;
+
+    @Param("0.1")
+    public double conflicts;
+
+    @Param("1")
+    public int snapshots;
+
+    File directory;
+    List<Artifact> roots;
+    List<Artifact> all;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      directory = Files.createTempDirectory("synthetic-repository").toFile();
+      SyntheticRepository repository = new SyntheticRepository()
+          .artifacts(artifacts)
+          .fanOut(fanOut)
+          .depth(depth)
+          .versions(versions)
+          .conflicts(conflicts)
+          .snapshots(snapshots);
+      repository.generate(directory);
+      roots = repository.roots();
+      all = repository.all();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      SyntheticRepository.delete(directory);
+    }
+
+    MavenClient newClient(File localRepository, boolean sharedSession) {
+      Map<String, Object> config = new HashMap<String, Object>();
+      config.put("maven.util.local-repository", localRepository.getAbsolutePath());
+      config.put("maven.util.session.shared", sharedSession);
+      config.put("maven.util.remote-repositories.maven_central", url("releases"));
+      config.put("maven.util.remote-repositories.synthetic_snapshots", url("snapshots"));
+      return new MavenClient(ConfigFactory.parseMap(config));
+    }
+
+    private String url(String name) {
+      // without a trailing slash, so that the snapshot repository is recognized by the end of its url
+      return new File(directory, name).toURI().toString().replaceAll("/$", "");
+    }
+
+  }
+
+  @State(Scope.Benchmark)
+  public static class Warm {
+
+    @Param({"false", "true"})
+    public boolean sharedSession;
+
+    MavenClient client;
+    File localRepository;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Repository repository) throws IOException {
+      localRepository = Files.createTempDirectory("warm-local-repository").toFile();
+      client = repository.newClient(localRepository, sharedSession);
+      for (Artifact root : repository.roots) {
+        client.allDependencies(root);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      client.close();
+      SyntheticRepository.delete(localRepository);
+    }
+
+    Artifact next(List<Artifact> artifacts) {
+      return artifacts.get(next++ % artifacts.size());
+    }
+
+  }
+
+  @State(Scope.Benchmark)
+  public static class Cold {
+
+    MavenClient client;
+    File localRepository;
+
+    @Setup(Level.Iteration)
+    public void setUp(Repository repository) throws IOException {
+      localRepository = Files.createTempDirectory("cold-local-repository").toFile();
+      client = repository.newClient(localRepository, false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+      client.close();
+      SyntheticRepository.delete(localRepository);
+    }
+
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Version> warmAllVersions(Warm warm, Repository repository) {
+    return warm.client.allVersions(SyntheticRepository.GROUP_ID, warm.next(repository.all).getArtifactId());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Version> warmAllSnapshotVersions(Warm warm, Repository repository) {
+    return warm.client.allVersions(SyntheticRepository.GROUP_ID, warm.next(repository.all).getArtifactId(), true);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Artifact warmResolveArtifact(Warm warm, Repository repository) {
+    return warm.client.resolveArtifact(warm.next(repository.all));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Set<Artifact> warmAllDependencies(Warm warm, Repository repository) {
+    return warm.client.allDependencies(warm.next(repository.roots));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<Version> coldAllVersions(Cold cold, Repository repository) {
+    return cold.client.allVersions(SyntheticRepository.GROUP_ID, repository.roots.get(0).getArtifactId());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Artifact coldResolveArtifact(Cold cold, Repository repository) {
+    return cold.client.resolveArtifact(repository.roots.get(0));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Set<Artifact> coldAllDependencies(Cold cold, Repository repository) {
+    return cold.client.allDependencies(repository.roots.get(0));
+  }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+
+/**
+ * Writes a synthetic maven repository with a configurable dependency graph, to benchmark resolution without network.
+ * Releases are written to a {@code releases} directory and snapshots to a {@code snapshots} directory, so that the
+ * snapshot repository is recognized by its url.
+ * <p>
+ * Artifacts are spread over {@code depth} levels. Every artifact depends on {@code fanOut} artifacts of the deeper
+ * levels, always in their latest version except for the {@code conflicts} share of dependencies which use an older
+ * version, so that the graph contains version conflicts to mediate. The artifacts of the first level are the roots.
+ */
+class SyntheticRepository {
+
+  static final String GROUP_ID = "com.github.zxfun.synthetic";
+
+  private int artifacts = 200;
+  private int fanOut = 4;
+  private int depth = 5;
+  private int versions = 3;
+  private double conflicts = 0.1;
+  private int snapshots = 1;
+  private long seed = 42;
+
+  SyntheticRepository artifacts(int artifacts) {
+    this.artifacts = artifacts;
+    return this;
+  }
+
+  SyntheticRepository fanOut(int fanOut) {
+    this.fanOut = fanOut;
+    return this;
+  }
+
+  SyntheticRepository depth(int depth) {
+    this.depth = depth;
+    return this;
+  }
+
+  SyntheticRepository versions(int versions) {
+    this.versions = versions;
+    return this;
+  }
+
+  SyntheticRepository conflicts(double conflicts) {
+    this.conflicts = conflicts;
+    return this;
+  }
+
+  SyntheticRepository snapshots(int snapshots) {
+    this.snapshots = snapshots;
+    return this;
+  }
+
+  SyntheticRepository seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /**
+   * Write the repository
+   *
+   * @param directory directory receiving the {@code releases} and {@code snapshots} repositories
+   * @throws IOException if a file cannot be written
+   */
+  void generate(File directory) throws IOException {
+    Random random = new Random(seed);
+    for (int i = 0; i < artifacts; i++) {
+      List<String> dependencies = new ArrayList<String>();
+      int level = level(i);
+      int first = firstOfLevel(level + 1);
+      if (first < artifacts) {
+        List<Integer> candidates = new ArrayList<Integer>();
+        for (int j = first; j < artifacts; j++) {
+          candidates.add(j);
+        }
+        Collections.shuffle(candidates, random);
+        for (int j : candidates.subList(0, Math.min(fanOut, candidates.size()))) {
+          int version = versions;
+          if (versions > 1 && random.nextDouble() < conflicts) {
+            version = 1 + random.nextInt(versions - 1);
+          }
+          dependencies.add(dependency(artifactId(j), version + ".0"));
+        }
+      }
+      List<String> releases = new ArrayList<String>();
+      for (int v = 1; v <= versions; v++) {
+        String version = v + ".0";
+        writeArtifact(new File(directory, "releases"), artifactId(i), version, version, dependencies);
+        releases.add(version);
+      }
+      writeMetadata(new File(directory, "releases"), artifactId(i), releases);
+      List<String> snapshotVersions = new ArrayList<String>();
+      for (int s = 1; s <= snapshots; s++) {
+        String version = (versions + s) + ".0-SNAPSHOT";
+        String timestamp = "20160101.1200" + String.format("%02d", s % 60);
+        String fileVersion = version.replace("SNAPSHOT", timestamp + "-1");
+        writeArtifact(new File(directory, "snapshots"), artifactId(i), version, fileVersion, dependencies);
+        writeSnapshotMetadata(new File(directory, "snapshots"), artifactId(i), version, timestamp);
+        snapshotVersions.add(version);
+      }
+      if (!snapshotVersions.isEmpty()) {
+        writeMetadata(new File(directory, "snapshots"), artifactId(i), snapshotVersions);
+      }
+    }
+  }
+
+  /**
+   * @return the latest release of every artifact of the first level
+   */
+  List<Artifact> roots() {
+    List<Artifact> roots = new ArrayList<Artifact>();
+    for (int i = 0; i < Math.min(firstOfLevel(1), artifacts); i++) {
+      roots.add(new DefaultArtifact(GROUP_ID, artifactId(i), "jar", versions + ".0"));
+    }
+    return roots;
+  }
+
+  /**
+   * @return the latest release of every artifact
+   */
+  List<Artifact> all() {
+    List<Artifact> all = new ArrayList<Artifact>();
+    for (int i = 0; i < artifacts; i++) {
+      all.add(new DefaultArtifact(GROUP_ID, artifactId(i), "jar", versions + ".0"));
+    }
+    return all;
+  }
+
+  private int level(int index) {
+    return (int) ((long) index * depth / artifacts);
+  }
+
+  private int firstOfLevel(int level) {
+    // smallest index i with i * depth / artifacts >= level
+    return (int) (((long) level * artifacts + depth - 1) / depth);
+  }
+
+  static String artifactId(int index) {
+    return "artifact-" + index;
+  }
+
+  private static String dependency(String artifactId, String version) {
+    return "<dependency><groupId>" + GROUP_ID + "</groupId><artifactId>" + artifactId + "</artifactId>"
+        + "<version>" + version + "</version></dependency>";
+  }
+
+  private static void writeArtifact(File repository,
+                                    String artifactId,
+                                    String version,
+                                    String fileVersion,
+                                    List<String> dependencies) throws IOException {
+    File dir = new File(repository, GROUP_ID.replace('.', '/') + "/" + artifactId + "/" + version);
+    StringBuilder pom = new StringBuilder();
+    pom.append("<project><modelVersion>4.0.0</modelVersion>")
+        .append("<groupId>").append(GROUP_ID).append("</groupId>")
+        .append("<artifactId>").append(artifactId).append("</artifactId>")
+        .append("<version>").append(version).append("</version><dependencies>");
+    for (String dependency : dependencies) {
+      pom.append(dependency);
+    }
+    pom.append("</dependencies></project>");
+    write(new File(dir, artifactId + "-" + fileVersion + ".pom"), pom.toString());
+    write(new File(dir, artifactId + "-" + fileVersion + ".jar"), artifactId + ":" + version);
+  }
+
+  private static void writeMetadata(File repository, String artifactId, List<String> versions) throws IOException {
+    StringBuilder metadata = new StringBuilder();
+    metadata.append("<metadata><groupId>").append(GROUP_ID).append("</groupId>")
+        .append("<artifactId>").append(artifactId).append("</artifactId><versioning>")
+        .append("<latest>").append(versions.get(versions.size() - 1)).append("</latest><versions>");
+    for (String version : versions) {
+      metadata.append("<version>").append(version).append("</version>");
+    }
+    metadata.append("</versions><lastUpdated>20160101120000</lastUpdated></versioning></metadata>");
+    write(new File(repository, GROUP_ID.replace('.', '/') + "/" + artifactId + "/maven-metadata.xml"),
+        metadata.toString());
+  }
+
+  private static void writeSnapshotMetadata(File repository, String artifactId, String version, String timestamp)
+      throws IOException {
+    String value = version.replace("SNAPSHOT", timestamp + "-1");
+    String metadata = "<metadata><groupId>" + GROUP_ID + "</groupId><artifactId>" + artifactId + "</artifactId>"
+        + "<version>" + version + "</version><versioning>"
+        + "<snapshot><timestamp>" + timestamp + "</timestamp><buildNumber>1</buildNumber></snapshot>"
+        + "<lastUpdated>" + timestamp.replace(".", "") + "</lastUpdated><snapshotVersions>"
+        + "<snapshotVersion><extension>jar</extension><value>" + value + "</value></snapshotVersion>"
+        + "<snapshotVersion><extension>pom</extension><value>" + value + "</value></snapshotVersion>"
+        + "</snapshotVersions></versioning></metadata>";
+    write(new File(repository, GROUP_ID.replace('.', '/') + "/" + artifactId + "/" + version + "/maven-metadata.xml"),
+        metadata);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(file.toPath(), bytes);
+    Files.write(new File(file.getPath() + ".sha1").toPath(), sha1(bytes).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static String sha1(byte[] bytes) {
+    try {
+      StringBuilder hex = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Delete a directory written by {@link #generate} or used as a local repository
+   */
+  static void delete(File file) throws IOException {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    Files.deleteIfExists(file.toPath());
+  }
+
+}
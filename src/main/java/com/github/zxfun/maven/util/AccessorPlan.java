@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * The getter/setter pairs and the clone method of a maven model class, discovered once per class and invoked through
+ * method handles. A property is a public, parameterless {@code getX} method declared by the class together with the
+ * {@code setX} method declared by the class taking the getter's return type.
+ */
+final class AccessorPlan {
+
+  private static final ConcurrentMap<Class<?>, AccessorPlan> plans = new ConcurrentHashMap<Class<?>, AccessorPlan>();
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final MethodHandle clone;
+  private final List<Property> properties;
+  private final List<Property> stringProperties;
+
+  private AccessorPlan(Class<?> clazz) throws ReflectiveOperationException {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    this.clone = lookup.unreflect(clazz.getMethod("clone")).asType(GETTER_TYPE);
+    List<Property> all = new ArrayList<Property>();
+    List<Property> strings = new ArrayList<Property>();
+    for (Method getter : clazz.getDeclaredMethods()) {
+      if (!getter.getName().startsWith("get") || getter.getParameterTypes().length != 0
+          || !Modifier.isPublic(getter.getModifiers()) || Modifier.isStatic(getter.getModifiers())) {
+        continue;
+      }
+      Method setter;
+      try {
+        setter = clazz.getDeclaredMethod(getter.getName().replaceFirst("get", "set"), getter.getReturnType());
+      } catch (NoSuchMethodException e) {
+        continue;
+      }
+      if (!Modifier.isPublic(setter.getModifiers())) {
+        continue;
+      }
+      Property property = new Property(getter.getName().substring(3),
+          lookup.unreflect(getter).asType(GETTER_TYPE), lookup.unreflect(setter).asType(SETTER_TYPE));
+      all.add(property);
+      if (getter.getReturnType() == String.class) {
+        strings.add(property);
+      }
+    }
+    this.properties = all;
+    this.stringProperties = strings;
+  }
+
+  /**
+   * @param clazz a maven model class
+   * @return the plan of the class
+   * @throws ReflectiveOperationException if the class cannot be cloned
+   */
+  static AccessorPlan of(Class<?> clazz) throws ReflectiveOperationException {
+    AccessorPlan plan = plans.get(clazz);
+    if (plan == null) {
+      plan = new AccessorPlan(clazz);
+      AccessorPlan existing = plans.putIfAbsent(clazz, plan);
+      if (existing != null) {
+        plan = existing;
+      }
+    }
+    return plan;
+  }
+
+  Object copy(Object obj) throws ReflectiveOperationException {
+    try {
+      return (Object) clone.invokeExact(obj);
+    } catch (Throwable e) {
+      throw wrap(e);
+    }
+  }
+
+  /**
+   * @return all properties of the class
+   */
+  List<Property> properties() {
+    return properties;
+  }
+
+  /**
+   * @return the properties of type {@link String}
+   */
+  List<Property> stringProperties() {
+    return stringProperties;
+  }
+
+  static final class Property {
+
+    private final String name;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private Property(String name, MethodHandle getter, MethodHandle setter) {
+      this.name = name;
+      this.getter = getter;
+      this.setter = setter;
+    }
+
+    String name() {
+      return name;
+    }
+
+    Object get(Object obj) throws ReflectiveOperationException {
+      try {
+        return (Object) getter.invokeExact(obj);
+      } catch (Throwable e) {
+        throw wrap(e);
+      }
+    }
+
+    void set(Object obj, Object value) throws ReflectiveOperationException {
+      try {
+        setter.invokeExact(obj, value);
+      } catch (Throwable e) {
+        throw wrap(e);
+      }
+    }
+
+  }
+
+  /**
+   * Wrap what an accessor threw the way reflective invocations do, letting errors through
+   */
+  private static InvocationTargetException wrap(Throwable e) {
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new InvocationTargetException(e);
+  }
+
+}
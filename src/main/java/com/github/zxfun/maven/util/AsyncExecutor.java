@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+
+
+/**
+ * Runs operations asynchronously, on virtual threads when the runtime supports them or else on a pool of daemon
+ * threads. Cancelling the returned future, or reaching the timeout, interrupts the running operation and makes its
+ * session abort the transfers still in progress.
+ */
+class AsyncExecutor {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncExecutor.class);
+
+  private final ExecutorService executor;
+  private final ScheduledExecutorService timer;
+
+  /**
+   * @param threads number of threads, 0 to use virtual threads if available and an unbounded pool otherwise
+   */
+  AsyncExecutor(int threads) {
+    this.executor = threads > 0
+        ? Executors.newFixedThreadPool(threads, new DaemonThreadFactory("maven-utils-async"))
+        : newVirtualThreadExecutor();
+    ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("maven-utils-timer"));
+    timer.setRemoveOnCancelPolicy(true);
+    this.timer = timer;
+  }
+
+  /**
+   * @param session   base session of the operation
+   * @param timeout   milliseconds after which the operation fails with a {@link TimeoutException}, 0 for no timeout
+   * @param operation the operation, receiving a copy of the session bound to the returned future
+   * @return the future result of the operation
+   */
+  <T> CompletableFuture<T> submit(RepositorySystemSession session, long timeout, Operation<T> operation) {
+    Task<T> task = new Task<>();
+    DefaultRepositorySystemSession taskSession = new DefaultRepositorySystemSession(session);
+    taskSession.setTransferListener(
+        ChainedTransferListener.newInstance(new CancellationListener(task), session.getTransferListener()));
+    taskSession.setReadOnly();
+    task.start(executor.submit(() -> {
+      try {
+        task.complete(operation.run(taskSession));
+      } catch (Throwable e) {
+        task.completeExceptionally(e);
+      }
+    }));
+    if (timeout > 0) {
+      ScheduledFuture<?> timeoutFuture = timer.schedule(
+          () -> task.timeout(new TimeoutException("Timed out after " + timeout + " ms")),
+          timeout, TimeUnit.MILLISECONDS);
+      task.whenComplete((result, error) -> timeoutFuture.cancel(false));
+    }
+    return task;
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+    timer.shutdownNow();
+  }
+
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      logger.debug("Virtual threads are not supported, using a thread pool");
+      return Executors.newCachedThreadPool(new DaemonThreadFactory("maven-utils-async"));
+    }
+  }
+
+  interface Operation<T> {
+    T run(RepositorySystemSession session) throws Exception;
+  }
+
+  private static final class Task<T> extends CompletableFuture<T> {
+
+    private volatile Future<?> execution;
+
+    void start(Future<?> execution) {
+      this.execution = execution;
+      if (isDone()) {
+        execution.cancel(true);
+      }
+    }
+
+    void timeout(TimeoutException e) {
+      if (completeExceptionally(e)) {
+        stop();
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      stop();
+      return cancelled;
+    }
+
+    private void stop() {
+      Future<?> execution = this.execution;
+      if (execution != null) {
+        execution.cancel(true);
+      }
+    }
+
+  }
+
+  /**
+   * Aborts the transfers of a session once its operation is cancelled or timed out
+   */
+  private static final class CancellationListener extends AbstractTransferListener {
+
+    private final Future<?> task;
+
+    CancellationListener(Future<?> task) {
+      this.task = task;
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+      check();
+    }
+
+    @Override
+    public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+      check();
+    }
+
+    private void check() throws TransferCancelledException {
+      if (task.isDone()) {
+        throw new TransferCancelledException();
+      }
+    }
+
+  }
+
+}
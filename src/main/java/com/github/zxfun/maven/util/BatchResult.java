@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Result of resolving a batch of {@link DependencyRoot}s. Every root ends up either in {@link #getResults()} or in
+ * {@link #getFailures()}.
+ */
+public final class BatchResult {
+
+  private final Map<DependencyRoot, Set<Artifact>> results;
+  private final Map<DependencyRoot, Exception> failures;
+
+  BatchResult(Map<DependencyRoot, Set<Artifact>> results, Map<DependencyRoot, Exception> failures) {
+    this.results = Collections.unmodifiableMap(results);
+    this.failures = Collections.unmodifiableMap(failures);
+  }
+
+  /**
+   * @return all transitive dependencies of every successfully resolved root
+   */
+  public Map<DependencyRoot, Set<Artifact>> getResults() {
+    return results;
+  }
+
+  /**
+   * @return the cause of failure of every root which could not be resolved
+   */
+  public Map<DependencyRoot, Exception> getFailures() {
+    return failures;
+  }
+
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+
+/**
+ * {@link RepositoryCache} bounded to a maximum number of entries so that a long-lived session does not grow without
+ * limit. The least recently used entries are evicted first.
+ */
+class BoundedRepositoryCache implements RepositoryCache {
+
+  private final LruCache<Object, Object> cache;
+
+  BoundedRepositoryCache(int maxEntries) {
+    this.cache = new LruCache<Object, Object>(maxEntries);
+  }
+
+  @Override
+  public void put(RepositorySystemSession session, Object key, Object data) {
+    if (data != null) {
+      cache.put(key, data);
+    } else {
+      cache.remove(key);
+    }
+  }
+
+  @Override
+  public Object get(RepositorySystemSession session, Object key) {
+    return cache.get(key);
+  }
+
+  void clear() {
+    cache.clear();
+  }
+
+  int size() {
+    return cache.size();
+  }
+
+}
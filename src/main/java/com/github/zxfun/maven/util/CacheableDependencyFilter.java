@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.graph.DependencyFilter;
+
+
+/**
+ * A {@link DependencyFilter} which can be identified by a stable key, so that dependencies resolved with it can be kept
+ * in the persistent resolution cache. Two filters with the same key must accept the same dependencies.
+ */
+public interface CacheableDependencyFilter extends DependencyFilter {
+
+  /**
+   * @return a key identifying this filter, stable across JVM restarts
+   */
+  String cacheKey();
+
+}
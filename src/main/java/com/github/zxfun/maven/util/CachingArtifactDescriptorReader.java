@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * {@link org.eclipse.aether.impl.ArtifactDescriptorReader} which keeps the descriptors it has read in the
+ * {@link RepositoryCache} of the session, so that the same POM is not parsed again by later requests sharing that
+ * cache. A descriptor is only shared by requests for the same artifact from the same repositories, since the
+ * repositories decide which parent and imported POMs are found. Snapshots and descriptors which could not be read
+ * cleanly are never cached.
+ */
+class CachingArtifactDescriptorReader extends DefaultArtifactDescriptorReader {
+
+  @Override
+  public ArtifactDescriptorResult readArtifactDescriptor(RepositorySystemSession session,
+                                                         ArtifactDescriptorRequest request)
+      throws ArtifactDescriptorException {
+    RepositoryCache cache = session.getCache();
+    Artifact artifact = request.getArtifact();
+    if (cache == null || artifact.isSnapshot()) {
+      return super.readArtifactDescriptor(session, request);
+    }
+    Key key = new Key(artifact, request.getRepositories());
+    ArtifactDescriptorResult cached = (ArtifactDescriptorResult) cache.get(session, key);
+    if (cached != null) {
+      return copy(cached, request);
+    }
+    ArtifactDescriptorResult result = super.readArtifactDescriptor(session, request);
+    if (result.getExceptions().isEmpty()) {
+      cache.put(session, key, result);
+    }
+    return result;
+  }
+
+  private static ArtifactDescriptorResult copy(ArtifactDescriptorResult cached, ArtifactDescriptorRequest request) {
+    ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+    result.setArtifact(cached.getArtifact());
+    result.setRepository(cached.getRepository());
+    result.setRelocations(cached.getRelocations());
+    result.setAliases(cached.getAliases());
+    result.setDependencies(cached.getDependencies());
+    result.setManagedDependencies(cached.getManagedDependencies());
+    result.setRepositories(cached.getRepositories());
+    result.setProperties(cached.getProperties());
+    return result;
+  }
+
+  static final class Key {
+
+    private final String coordinates;
+    private final List<String> repositories;
+    private final int hashCode;
+
+    Key(Artifact artifact, List<RemoteRepository> repositories) {
+      this.coordinates = artifact.toString();
+      this.repositories = new ArrayList<>(repositories.size());
+      for (RemoteRepository repository : repositories) {
+        this.repositories.add(repository.getId() + ":" + repository.getUrl());
+      }
+      this.hashCode = 31 * coordinates.hashCode() + this.repositories.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return coordinates.equals(other.coordinates) && repositories.equals(other.repositories);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.artifact.*;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+
+import java.util.*;
+
+
+/**
+ * Converts maven model dependencies to Aether dependencies. All conversions of one converter share their artifact
+ * types, artifacts and exclusions, so coordinates repeated across dependencies end up as the same instances.
+ * A converter is not thread safe.
+ */
+class DependencyConverter {
+
+  private static final ArtifactTypeRegistry typeRegistry =
+      MavenRepositorySystemUtils.newSession().getArtifactTypeRegistry();
+
+  private final Map<String, ArtifactType> types = new HashMap<String, ArtifactType>();
+  private final Map<String, Artifact> artifacts = new HashMap<String, Artifact>();
+  private final Map<String, Exclusion> exclusions = new HashMap<String, Exclusion>();
+
+  Dependency convert(org.apache.maven.model.Dependency dependency) {
+    Artifact artifact = artifact(dependency);
+    List<Exclusion> dependencyExclusions = new ArrayList<Exclusion>(dependency.getExclusions().size());
+    for (org.apache.maven.model.Exclusion exclusion : dependency.getExclusions()) {
+      dependencyExclusions.add(convert(exclusion));
+    }
+    return new Dependency(artifact, dependency.getScope(), dependency.isOptional(), dependencyExclusions);
+  }
+
+  List<Dependency> convertAll(List<org.apache.maven.model.Dependency> dependencies) {
+    List<Dependency> results = new ArrayList<Dependency>(dependencies.size());
+    for (org.apache.maven.model.Dependency dependency : dependencies) {
+      results.add(convert(dependency));
+    }
+    return results;
+  }
+
+  Exclusion convert(org.apache.maven.model.Exclusion exclusion) {
+    String key = exclusion.getGroupId() + ":" + exclusion.getArtifactId();
+    Exclusion result = exclusions.get(key);
+    if (result == null) {
+      result = new Exclusion(exclusion.getGroupId(), exclusion.getArtifactId(), "*", "*");
+      exclusions.put(key, result);
+    }
+    return result;
+  }
+
+  private Artifact artifact(org.apache.maven.model.Dependency dependency) {
+    String systemPath = dependency.getSystemPath();
+    String key = dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getType() + ":"
+        + dependency.getClassifier() + ":" + dependency.getVersion() + ":" + systemPath;
+    Artifact artifact = artifacts.get(key);
+    if (artifact == null) {
+      Map<String, String> props = new HashMap<String, String>();
+      if (systemPath != null) {
+        props.put(ArtifactProperties.LOCAL_PATH, systemPath);
+      }
+      artifact = new DefaultArtifact(dependency.getGroupId(), dependency.getArtifactId(),
+          dependency.getClassifier(), dependency.getType(), dependency.getVersion(), props,
+          type(dependency.getType()));
+      artifacts.put(key, artifact);
+    }
+    return artifact;
+  }
+
+  private ArtifactType type(String id) {
+    ArtifactType type = types.get(id);
+    if (type == null) {
+      type = typeRegistry.get(id);
+      if (type == null) {
+        type = new DefaultArtifactType(id);
+      }
+      types.put(id, type);
+    }
+    return type;
+  }
+
+}
@@ -0,0 +1,686 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionScheme;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+
+/**
+ * Compact store of the dependency graphs of many roots. Every distinct artifact is interned once as an integer id.
+ * The edges between artifacts are kept as sorted primitive arrays, indexed by source (forward) and by target
+ * (reverse), and so are the edges and the artifacts of the graph of every root, so that the graphs of thousands of
+ * roots fit in a few bytes per edge and queries do not allocate per visited node.
+ * <p>
+ * The edges of all graphs are merged to answer the dependencies and dependents of an artifact, while the edges of
+ * each root are kept apart: a root only depends on the artifacts of its own graph, through the dependencies of its own
+ * graph, even if conflict resolution or exclusions gave other graphs other versions or other dependencies.
+ * <p>
+ * Artifacts are identified by their coordinates {@code groupId:artifactId:extension[:classifier]:version}. Graphs can
+ * be added at any time, the arrays are rebuilt on the next query. All methods are thread safe.
+ */
+public class DependencyGraphStore {
+
+  private static final int MAGIC = 0x4d554753;
+  private static final int FORMAT = 2;
+  private static final VersionScheme versionScheme = new GenericVersionScheme();
+
+  private final Map<String, Integer> ids = new HashMap<String, Integer>();
+  private final Map<String, Integer> keyIds = new HashMap<String, Integer>();
+  private final BitSet roots = new BitSet();
+  private String[] coordinates = new String[64];
+  private int[] keyOf = new int[64];
+  // edges of the graph of every root, as (source << 32 | target), and the artifacts they reach, derived from them
+  private long[][] rootEdges = new long[64][];
+  private int[] rootEdgeCounts = new int[64];
+  private final BitSet unsortedRoots = new BitSet();
+  private int[][] members = new int[64][];
+  private int[] memberCounts = new int[64];
+  private int size;
+  private int keyCount;
+
+  // edges of all graphs as (source << 32 | target), merged from the edges of the roots, sorted and without duplicates
+  private long[] edges = new long[0];
+  private int edgeCount;
+
+  private boolean dirty;
+  private int[] forwardOffsets = new int[1];
+  private int[] reverseOffsets = new int[1];
+  private int[] reverseSources = new int[0];
+  private int[] keyOffsets = new int[1];
+  private int[] keyMembers = new int[0];
+  private int[] containingOffsets = new int[1];
+  private int[] containingRoots = new int[0];
+  private int containedCount;
+
+  // scratch space of the graph searches
+  private int[] marks = new int[0];
+  private int mark;
+  private int[] queue = new int[0];
+  private int[] previous = new int[0];
+
+  /**
+   * Add the graph of a resolved or collected root
+   *
+   * @param root root of the graph, as returned by the collection of a root artifact
+   */
+  public synchronized void add(DependencyNode root) {
+    if (root.getArtifact() == null) {
+      return;
+    }
+    int rootId = intern(root.getArtifact());
+    setRoot(rootId);
+    Set<DependencyNode> visited = Collections.newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>());
+    Deque<DependencyNode> pending = new ArrayDeque<DependencyNode>();
+    Deque<Integer> pendingIds = new ArrayDeque<Integer>();
+    visited.add(root);
+    pending.push(root);
+    pendingIds.push(rootId);
+    while (!pending.isEmpty()) {
+      DependencyNode node = pending.pop();
+      int id = pendingIds.pop();
+      for (DependencyNode child : node.getChildren()) {
+        if (child.getArtifact() == null) {
+          continue;
+        }
+        int childId = intern(child.getArtifact());
+        addEdge(rootId, id, childId);
+        if (visited.add(child)) {
+          pending.push(child);
+          pendingIds.push(childId);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return a visitor adding the nodes it receives to this store, to fill it while traversing a graph with
+   * {@link MavenClient#traverse}
+   */
+  public DependencyGraphVisitor visitor() {
+    return new DependencyGraphVisitor() {
+      private int root = -1;
+
+      @Override
+      public boolean visit(DependencyNode node, List<DependencyNode> parents) {
+        synchronized (DependencyGraphStore.this) {
+          int id = intern(node.getArtifact());
+          if (parents.isEmpty()) {
+            root = id;
+            setRoot(id);
+          } else if (root >= 0) {
+            addEdge(root, intern(parents.get(0).getArtifact()), id);
+          }
+        }
+        return true;
+      }
+    };
+  }
+
+  /**
+   * @return number of distinct artifacts in the graphs of the roots
+   */
+  public synchronized int size() {
+    compact();
+    return containedCount;
+  }
+
+  /**
+   * @return number of distinct edges between artifacts
+   */
+  public synchronized int edgeCount() {
+    compact();
+    return edgeCount;
+  }
+
+  /**
+   * @return all roots added to the store
+   */
+  public synchronized List<Artifact> roots() {
+    List<Artifact> result = new ArrayList<Artifact>();
+    for (int id = roots.nextSetBit(0); id >= 0; id = roots.nextSetBit(id + 1)) {
+      result.add(artifact(id));
+    }
+    return result;
+  }
+
+  /**
+   * @return {@code true} if the artifact is in the graph of a root
+   */
+  public synchronized boolean contains(Artifact artifact) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    if (id == null) {
+      return false;
+    }
+    compact();
+    return containingOffsets[id + 1] > containingOffsets[id];
+  }
+
+  /**
+   * @return the direct dependencies of the artifact, in every graph it appears in
+   */
+  public synchronized List<Artifact> dependencies(Artifact artifact) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    compact();
+    List<Artifact> result = new ArrayList<Artifact>();
+    for (int i = forwardOffsets[id]; i < forwardOffsets[id + 1]; i++) {
+      result.add(artifact((int) edges[i]));
+    }
+    return result;
+  }
+
+  /**
+   * @return the artifacts depending directly on the artifact, in every graph it appears in
+   */
+  public synchronized List<Artifact> dependents(Artifact artifact) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    compact();
+    List<Artifact> result = new ArrayList<Artifact>();
+    for (int i = reverseOffsets[id]; i < reverseOffsets[id + 1]; i++) {
+      result.add(artifact(reverseSources[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Find the roots pulling in an artifact, directly or transitively
+   *
+   * @param artifact the artifact
+   * @return the roots whose graph contains the artifact, including the artifact itself if it is a root
+   */
+  public synchronized List<Artifact> rootsDependingOn(Artifact artifact) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    compact();
+    List<Artifact> result = new ArrayList<Artifact>(containingOffsets[id + 1] - containingOffsets[id]);
+    for (int i = containingOffsets[id]; i < containingOffsets[id + 1]; i++) {
+      result.add(artifact(containingRoots[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Find a shortest chain of dependencies from one of the roots pulling in an artifact to the artifact
+   *
+   * @param artifact the artifact
+   * @return the root, the artifact it depends on and so on down to the artifact, or an empty list if no root pulls in
+   * the artifact
+   */
+  public synchronized List<Artifact> pathToRoot(Artifact artifact) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    compact();
+    for (int i = containingOffsets[id]; i < containingOffsets[id + 1]; i++) {
+      List<Artifact> path = path(id, containingRoots[i]);
+      if (!path.isEmpty()) {
+        return path;
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Find a shortest chain of dependencies from a root to an artifact, going through the artifacts of the graph of the
+   * root only
+   *
+   * @param artifact the artifact
+   * @param root     the root
+   * @return the root, the artifact it depends on and so on down to the artifact, or an empty list if the root does not
+   * pull in the artifact
+   */
+  public synchronized List<Artifact> pathToRoot(Artifact artifact, Artifact root) {
+    Integer id = ids.get(ArtifactIdUtils.toId(artifact));
+    Integer rootId = ids.get(ArtifactIdUtils.toId(root));
+    if (id == null || rootId == null || !roots.get(rootId)) {
+      return Collections.emptyList();
+    }
+    compact();
+    return path(id, rootId);
+  }
+
+  private List<Artifact> path(int id, int root) {
+    if (!isMember(root, id)) {
+      return Collections.emptyList();
+    }
+    int head = 0;
+    int tail = 0;
+    nextMark();
+    marks[id] = mark;
+    previous[id] = -1;
+    queue[tail++] = id;
+    while (head < tail) {
+      int current = queue[head++];
+      if (current == root) {
+        List<Artifact> path = new ArrayList<Artifact>();
+        for (int step = current; step >= 0; step = previous[step]) {
+          path.add(artifact(step));
+        }
+        return path;
+      }
+      for (int i = reverseOffsets[current]; i < reverseOffsets[current + 1]; i++) {
+        int source = reverseSources[i];
+        if (marks[source] != mark && hasEdge(root, source, current)) {
+          marks[source] = mark;
+          previous[source] = current;
+          queue[tail++] = source;
+        }
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * @return the distinct versions of an artifact present in the store, in ascending order
+   */
+  public synchronized List<String> versions(String groupId, String artifactId) {
+    Integer key = keyIds.get(groupId + ':' + artifactId);
+    if (key == null) {
+      return Collections.emptyList();
+    }
+    compact();
+    return versions(key);
+  }
+
+  /**
+   * @return the artifacts present in more than one version, as {@code groupId:artifactId}, with their versions in
+   * ascending order
+   */
+  public synchronized Map<String, List<String>> versionSpread() {
+    compact();
+    Map<String, List<String>> result = new TreeMap<String, List<String>>();
+    for (int key = 0; key < keyCount; key++) {
+      if (keyOffsets[key + 1] - keyOffsets[key] > 1) {
+        List<String> versions = versions(key);
+        if (versions.size() > 1) {
+          String coordinate = coordinates[keyMembers[keyOffsets[key]]];
+          result.put(coordinate.substring(0, coordinate.indexOf(':', coordinate.indexOf(':') + 1)), versions);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Write the store to a file, replacing it atomically
+   *
+   * @param file the file
+   * @throws IOException if the file cannot be written
+   */
+  public synchronized void writeTo(File file) throws IOException {
+    compact();
+    File directory = file.getAbsoluteFile().getParentFile();
+    File tmp = File.createTempFile("graph", ".tmp", directory);
+    try {
+      CheckedOutputStream checked = new CheckedOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmp)), new CRC32());
+      DataOutputStream out = new DataOutputStream(checked);
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        writeVarInt(out, size);
+        for (int id = 0; id < size; id++) {
+          out.writeUTF(coordinates[id]);
+        }
+        writeVarInt(out, roots.cardinality());
+        int last = 0;
+        for (int id = roots.nextSetBit(0); id >= 0; id = roots.nextSetBit(id + 1)) {
+          writeVarInt(out, id - last);
+          last = id;
+          // the edges of each root are sorted by source then target, so they are written as deltas
+          writeVarInt(out, rootEdgeCounts[id]);
+          int lastSource = 0;
+          int lastTarget = 0;
+          for (int i = 0; i < rootEdgeCounts[id]; i++) {
+            int source = (int) (rootEdges[id][i] >>> 32);
+            int target = (int) rootEdges[id][i];
+            writeVarInt(out, source - lastSource);
+            writeVarInt(out, source == lastSource ? target - lastTarget : target);
+            lastSource = source;
+            lastTarget = target;
+          }
+        }
+        out.flush();
+        out.writeLong(checked.getChecksum().getValue());
+      } finally {
+        out.close();
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      if (tmp.exists() && !tmp.delete()) {
+        tmp.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Read a store written by {@link #writeTo}
+   *
+   * @param file the file
+   * @return the store
+   * @throws IOException if the file cannot be read or is corrupted
+   */
+  public static DependencyGraphStore readFrom(File file) throws IOException {
+    CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(new FileInputStream(file)), new CRC32());
+    DataInputStream in = new DataInputStream(checked);
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+        throw new IOException("Not a dependency graph store: " + file);
+      }
+      DependencyGraphStore store = new DependencyGraphStore();
+      int size = readVarInt(in);
+      for (int id = 0; id < size; id++) {
+        store.intern(in.readUTF());
+      }
+      int rootCount = readVarInt(in);
+      int id = 0;
+      for (int i = 0; i < rootCount; i++) {
+        id += readVarInt(in);
+        store.setRoot(checkId(id, size, file));
+        int edgeCount = readVarInt(in);
+        int source = 0;
+        int target = 0;
+        for (int j = 0; j < edgeCount; j++) {
+          int sourceDelta = readVarInt(in);
+          source += sourceDelta;
+          target = sourceDelta == 0 ? target + readVarInt(in) : readVarInt(in);
+          store.addEdge(id, checkId(source, size, file), checkId(target, size, file));
+        }
+      }
+      long expected = checked.getChecksum().getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("Corrupted dependency graph store: " + file);
+      }
+      return store;
+    } catch (EOFException e) {
+      throw new IOException("Truncated dependency graph store: " + file, e);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static int checkId(int id, int size, File file) throws IOException {
+    if (id < 0 || id >= size) {
+      throw new IOException("Corrupted dependency graph store: " + file);
+    }
+    return id;
+  }
+
+  private int intern(Artifact artifact) {
+    return intern(ArtifactIdUtils.toId(artifact));
+  }
+
+  private int intern(String coordinate) {
+    Integer id = ids.get(coordinate);
+    if (id != null) {
+      return id;
+    }
+    if (size == coordinates.length) {
+      coordinates = Arrays.copyOf(coordinates, size * 2);
+      keyOf = Arrays.copyOf(keyOf, size * 2);
+      rootEdges = Arrays.copyOf(rootEdges, size * 2);
+      rootEdgeCounts = Arrays.copyOf(rootEdgeCounts, size * 2);
+      members = Arrays.copyOf(members, size * 2);
+      memberCounts = Arrays.copyOf(memberCounts, size * 2);
+    }
+    String versionless = coordinate.substring(0, coordinate.indexOf(':', coordinate.indexOf(':') + 1));
+    Integer key = keyIds.get(versionless);
+    if (key == null) {
+      key = keyCount++;
+      keyIds.put(versionless, key);
+    }
+    coordinates[size] = coordinate;
+    keyOf[size] = key;
+    ids.put(coordinate, size);
+    dirty = true;
+    return size++;
+  }
+
+  /**
+   * Mark an artifact as a root whose graph is being added, replacing the graph it had
+   */
+  private void setRoot(int id) {
+    roots.set(id);
+    rootEdgeCounts[id] = 0;
+    unsortedRoots.set(id);
+    dirty = true;
+  }
+
+  /**
+   * Add an edge of the graph of a root
+   */
+  private void addEdge(int root, int source, int target) {
+    long[] list = rootEdges[root];
+    if (list == null) {
+      list = rootEdges[root] = new long[8];
+    } else if (rootEdgeCounts[root] == list.length) {
+      list = rootEdges[root] = Arrays.copyOf(list, list.length * 2);
+    }
+    list[rootEdgeCounts[root]++] = ((long) source << 32) | target;
+    unsortedRoots.set(root);
+    dirty = true;
+  }
+
+  private boolean isMember(int root, int id) {
+    return Arrays.binarySearch(members[root], 0, memberCounts[root], id) >= 0;
+  }
+
+  private boolean hasEdge(int root, int source, int target) {
+    return Arrays.binarySearch(rootEdges[root], 0, rootEdgeCounts[root], ((long) source << 32) | target) >= 0;
+  }
+
+  /**
+   * Sort and deduplicate the edges and members added since the last query and rebuild the indexes
+   */
+  private void compact() {
+    if (!dirty) {
+      return;
+    }
+    for (int root = unsortedRoots.nextSetBit(0); root >= 0; root = unsortedRoots.nextSetBit(root + 1)) {
+      long[] list = rootEdges[root];
+      int count = rootEdgeCounts[root];
+      if (list != null) {
+        Arrays.sort(list, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+          if (unique == 0 || list[i] != list[unique - 1]) {
+            list[unique++] = list[i];
+          }
+        }
+        count = rootEdgeCounts[root] = unique;
+      }
+      // the artifacts of the graph are the root and the targets of its edges
+      int[] reached = new int[count + 1];
+      reached[0] = root;
+      for (int i = 0; i < count; i++) {
+        reached[i + 1] = (int) list[i];
+      }
+      Arrays.sort(reached);
+      int unique = 0;
+      for (int i = 0; i < reached.length; i++) {
+        if (unique == 0 || reached[i] != reached[unique - 1]) {
+          reached[unique++] = reached[i];
+        }
+      }
+      members[root] = reached;
+      memberCounts[root] = unique;
+    }
+    unsortedRoots.clear();
+
+    // the merged edges are rebuilt from the graphs of the roots, so that replaced graphs leave nothing behind
+    int total = 0;
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      total += rootEdgeCounts[root];
+    }
+    edges = new long[total];
+    edgeCount = 0;
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      if (rootEdgeCounts[root] > 0) {
+        System.arraycopy(rootEdges[root], 0, edges, edgeCount, rootEdgeCounts[root]);
+        edgeCount += rootEdgeCounts[root];
+      }
+    }
+    Arrays.sort(edges, 0, edgeCount);
+    int uniqueEdges = 0;
+    for (int i = 0; i < edgeCount; i++) {
+      if (uniqueEdges == 0 || edges[i] != edges[uniqueEdges - 1]) {
+        edges[uniqueEdges++] = edges[i];
+      }
+    }
+    edgeCount = uniqueEdges;
+
+    forwardOffsets = new int[size + 1];
+    reverseOffsets = new int[size + 1];
+    for (int i = 0; i < edgeCount; i++) {
+      forwardOffsets[(int) (edges[i] >>> 32) + 1]++;
+      reverseOffsets[(int) edges[i] + 1]++;
+    }
+    for (int id = 0; id < size; id++) {
+      forwardOffsets[id + 1] += forwardOffsets[id];
+      reverseOffsets[id + 1] += reverseOffsets[id];
+    }
+    reverseSources = new int[edgeCount];
+    int[] fill = Arrays.copyOf(reverseOffsets, size);
+    for (int i = 0; i < edgeCount; i++) {
+      reverseSources[fill[(int) edges[i]]++] = (int) (edges[i] >>> 32);
+    }
+
+    containingOffsets = new int[size + 1];
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      for (int i = 0; i < memberCounts[root]; i++) {
+        containingOffsets[members[root][i] + 1]++;
+      }
+    }
+    for (int id = 0; id < size; id++) {
+      containingOffsets[id + 1] += containingOffsets[id];
+    }
+    containingRoots = new int[containingOffsets[size]];
+    fill = Arrays.copyOf(containingOffsets, size);
+    for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+      for (int i = 0; i < memberCounts[root]; i++) {
+        containingRoots[fill[members[root][i]]++] = root;
+      }
+    }
+
+
+    // only the artifacts still in the graph of a root have their versions indexed
+    keyOffsets = new int[keyCount + 1];
+    containedCount = 0;
+    for (int id = 0; id < size; id++) {
+      if (containingOffsets[id + 1] > containingOffsets[id]) {
+        keyOffsets[keyOf[id] + 1]++;
+        containedCount++;
+      }
+    }
+    for (int key = 0; key < keyCount; key++) {
+      keyOffsets[key + 1] += keyOffsets[key];
+    }
+    keyMembers = new int[keyOffsets[keyCount]];
+    fill = Arrays.copyOf(keyOffsets, keyCount);
+    for (int id = 0; id < size; id++) {
+      if (containingOffsets[id + 1] > containingOffsets[id]) {
+        keyMembers[fill[keyOf[id]]++] = id;
+      }
+    }
+
+    if (marks.length < size) {
+      marks = new int[size];
+      mark = 0;
+      queue = new int[size];
+      previous = new int[size];
+    }
+    dirty = false;
+  }
+
+  private void nextMark() {
+    if (++mark == 0) {
+      Arrays.fill(marks, 0);
+      mark = 1;
+    }
+  }
+
+  private List<String> versions(int key) {
+    Set<String> distinct = new HashSet<String>();
+    for (int i = keyOffsets[key]; i < keyOffsets[key + 1]; i++) {
+      String coordinate = coordinates[keyMembers[i]];
+      distinct.add(coordinate.substring(coordinate.lastIndexOf(':') + 1));
+    }
+    List<Version> versions = new ArrayList<Version>(distinct.size());
+    for (String version : distinct) {
+      try {
+        versions.add(versionScheme.parseVersion(version));
+      } catch (InvalidVersionSpecificationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    Collections.sort(versions);
+    List<String> result = new ArrayList<String>(versions.size());
+    for (Version version : versions) {
+      result.add(version.toString());
+    }
+    return result;
+  }
+
+  private Artifact artifact(int id) {
+    return new DefaultArtifact(coordinates[id]);
+  }
+
+  private static void writeVarInt(DataOutput out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInput in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = in.readByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable length integer");
+  }
+
+}
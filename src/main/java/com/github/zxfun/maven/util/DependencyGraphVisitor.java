@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.util.List;
+
+
+/**
+ * Receives the nodes of a dependency graph one by one, see {@link MavenClient#traverse}.
+ */
+public interface DependencyGraphVisitor {
+
+  /**
+   * Visit a node of the graph. Nodes are visited depth first, every parent before its children.
+   *
+   * @param node    the node, its artifact has its file set unless the traversal only collects the graph
+   * @param parents the chain of parents leading to the node, the direct parent first. It is only valid during this call
+   *                and its size is the depth of the node.
+   * @return {@code true} to continue the traversal, {@code false} to stop it
+   */
+  boolean visit(DependencyNode node, List<DependencyNode> parents);
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+
+import java.util.*;
+
+
+/**
+ * Walks a collected dependency graph depth first, visiting every node once. The chain of parents is kept on a single
+ * stack, exposed to the filter and the visitor through a reversed view.
+ */
+class DependencyGraphWalker {
+
+  private final DependencyGraphVisitor visitor;
+  private final DependencyFilter filter;
+  private final int maxDepth;
+  private final NodeResolver resolver;
+  private final List<DependencyNode> path = new ArrayList<DependencyNode>();
+  private final List<DependencyNode> parents = new AbstractList<DependencyNode>() {
+    @Override
+    public DependencyNode get(int index) {
+      return path.get(path.size() - 1 - index);
+    }
+
+    @Override
+    public int size() {
+      return path.size();
+    }
+  };
+  private final Set<DependencyNode> visited =
+      Collections.newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>());
+
+  /**
+   * @param visitor  receives the accepted nodes
+   * @param filter   nodes not accepted are not visited, their children still are
+   * @param maxDepth nodes deeper than this are not walked
+   * @param resolver resolves the artifact of a node before it is visited, {@code null} to only walk the graph
+   */
+  DependencyGraphWalker(DependencyGraphVisitor visitor,
+                        DependencyFilter filter,
+                        int maxDepth,
+                        NodeResolver resolver) {
+    this.visitor = visitor;
+    this.filter = filter;
+    this.maxDepth = maxDepth;
+    this.resolver = resolver;
+  }
+
+  /**
+   * @param root root of the graph
+   * @return {@code true} if the whole graph was walked, {@code false} if the visitor stopped the walk
+   * @throws RepositoryException if the artifact of a node cannot be resolved
+   */
+  boolean walk(DependencyNode root) throws RepositoryException {
+    return walk(root, 0);
+  }
+
+  private boolean walk(DependencyNode node, int depth) throws RepositoryException {
+    if (!visited.add(node)) {
+      return true;
+    }
+    if (filter == null || filter.accept(node, parents)) {
+      if (resolver != null && node.getArtifact() != null && node.getArtifact().getFile() == null) {
+        resolver.resolve(node);
+      }
+      if (!visitor.visit(node, parents)) {
+        return false;
+      }
+    }
+    if (depth < maxDepth) {
+      path.add(node);
+      for (DependencyNode child : node.getChildren()) {
+        if (!walk(child, depth + 1)) {
+          return false;
+        }
+      }
+      path.remove(path.size() - 1);
+    }
+    return true;
+  }
+
+  interface NodeResolver {
+    /**
+     * Resolve the artifact of the node and set it on the node
+     */
+    void resolve(DependencyNode node) throws RepositoryException;
+  }
+
+}
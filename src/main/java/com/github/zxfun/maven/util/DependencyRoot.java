@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A root artifact to resolve together with the managed dependencies and the filter used for it.
+ * Roots are equal when all three parts are equal, so duplicated roots in a batch are only resolved once.
+ */
+public final class DependencyRoot {
+
+  private final Artifact artifact;
+  private final List<Dependency> managedDependencies;
+  private final DependencyFilter dependencyFilter;
+
+  public DependencyRoot(Artifact artifact, List<Dependency> managedDependencies, DependencyFilter dependencyFilter) {
+    if (artifact == null) {
+      throw new IllegalArgumentException("artifact cannot be null");
+    }
+    this.artifact = artifact;
+    this.managedDependencies = managedDependencies == null
+        ? Collections.<Dependency>emptyList()
+        : Collections.unmodifiableList(new ArrayList<Dependency>(managedDependencies));
+    this.dependencyFilter = dependencyFilter == null ? new MavenUtils.EmptyDependencyFilter() : dependencyFilter;
+  }
+
+  public DependencyRoot(Artifact artifact, List<Dependency> managedDependencies) {
+    this(artifact, managedDependencies, null);
+  }
+
+  public DependencyRoot(Artifact artifact) {
+    this(artifact, null, null);
+  }
+
+  public Artifact getArtifact() {
+    return artifact;
+  }
+
+  public List<Dependency> getManagedDependencies() {
+    return managedDependencies;
+  }
+
+  public DependencyFilter getDependencyFilter() {
+    return dependencyFilter;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof DependencyRoot)) {
+      return false;
+    }
+    DependencyRoot that = (DependencyRoot) obj;
+    return artifact.equals(that.artifact)
+        && managedDependencies.equals(that.managedDependencies)
+        && dependencyFilter.equals(that.dependencyFilter);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = artifact.hashCode();
+    hash = hash * 31 + managedDependencies.hashCode();
+    hash = hash * 31 + dependencyFilter.hashCode();
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return artifact.toString();
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.graph.Dependency;
+
+
+/**
+ * Stops the collection of a dependency graph below a given depth, on top of the selector of the session. Each
+ * instance selects the dependencies of one depth, the root being at depth 0.
+ */
+class DepthLimitingSelector implements DependencySelector {
+
+  private final DependencySelector delegate;
+  private final int depth;
+  private final int maxDepth;
+
+  DepthLimitingSelector(DependencySelector delegate, int maxDepth) {
+    this(delegate, 0, maxDepth);
+  }
+
+  private DepthLimitingSelector(DependencySelector delegate, int depth, int maxDepth) {
+    this.delegate = delegate;
+    this.depth = depth;
+    this.maxDepth = maxDepth;
+  }
+
+  @Override
+  public boolean selectDependency(Dependency dependency) {
+    return depth <= maxDepth && (delegate == null || delegate.selectDependency(dependency));
+  }
+
+  @Override
+  public DependencySelector deriveChildSelector(DependencyCollectionContext context) {
+    DependencySelector child = delegate == null ? null : delegate.deriveChildSelector(context);
+    return new DepthLimitingSelector(child, depth + 1, maxDepth);
+  }
+
+  // the collector reuses the children collected for equal selectors, so the depth is part of the equality
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof DepthLimitingSelector)) {
+      return false;
+    }
+    DepthLimitingSelector that = (DepthLimitingSelector) obj;
+    return depth == that.depth && maxDepth == that.maxDepth
+        && (delegate == null ? that.delegate == null : delegate.equals(that.delegate));
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * depth + maxDepth) + (delegate == null ? 0 : delegate.hashCode());
+  }
+
+}
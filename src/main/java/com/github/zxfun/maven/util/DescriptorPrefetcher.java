@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Reads the artifact descriptors of a dependency graph breadth first, fetching all descriptors of one level
+ * concurrently. The descriptors end up in the {@link org.eclipse.aether.RepositoryCache} of the session through
+ * {@link CachingArtifactDescriptorReader}, so the default collector run afterwards on the same session finds them in
+ * memory instead of fetching them one after another. The collector still builds and conflict-resolves the graph,
+ * hence the result is the same as without prefetching.
+ *
+ * <p>The walk approximates the selection done by the collector: test, provided and optional dependencies are only
+ * followed directly below the root, exclusions and versions managed by the request or the root are applied, and
+ * version ranges are left to the collector. A descriptor that is not prefetched is simply read by the collector.</p>
+ */
+class DescriptorPrefetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(DescriptorPrefetcher.class);
+
+  private final RepositorySystem repositorySystem;
+  private final ExecutorService executor;
+
+  DescriptorPrefetcher(RepositorySystem repositorySystem, int threads) {
+    this.repositorySystem = repositorySystem;
+    this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("maven-utils-collector"));
+  }
+
+  void prefetch(final RepositorySystemSession session,
+                Artifact root,
+                List<Dependency> managedDependencies,
+                final List<RemoteRepository> repositories) throws InterruptedException {
+    Map<String, String> managedVersions = new HashMap<String, String>();
+    for (Dependency dependency : managedDependencies) {
+      String key = versionlessKey(dependency.getArtifact());
+      if (!managedVersions.containsKey(key)) {
+        managedVersions.put(key, dependency.getArtifact().getVersion());
+      }
+    }
+    Set<String> visited = new HashSet<String>();
+    List<Node> level = Collections.singletonList(new Node(root, Collections.<String>emptySet()));
+    visited.add(root.toString());
+    for (int depth = 0; !level.isEmpty(); depth++) {
+      List<Future<ArtifactDescriptorResult>> futures = new ArrayList<Future<ArtifactDescriptorResult>>(level.size());
+      for (final Node node : level) {
+        futures.add(executor.submit(new Callable<ArtifactDescriptorResult>() {
+          @Override
+          public ArtifactDescriptorResult call() throws ArtifactDescriptorException {
+            return repositorySystem.readArtifactDescriptor(
+                session, new ArtifactDescriptorRequest(node.artifact, repositories, ""));
+          }
+        }));
+      }
+      List<Node> next = new ArrayList<Node>();
+      for (int i = 0; i < level.size(); i++) {
+        ArtifactDescriptorResult descriptor;
+        try {
+          descriptor = futures.get(i).get();
+        } catch (ExecutionException e) {
+          logger.debug("Failed to prefetch descriptor of {}", level.get(i).artifact, e.getCause());
+          continue;
+        }
+        if (depth == 0) {
+          for (Dependency dependency : descriptor.getManagedDependencies()) {
+            String key = versionlessKey(dependency.getArtifact());
+            if (!managedVersions.containsKey(key)) {
+              managedVersions.put(key, dependency.getArtifact().getVersion());
+            }
+          }
+        }
+        Set<String> exclusions = level.get(i).exclusions;
+        for (Dependency dependency : descriptor.getDependencies()) {
+          if (depth > 0 && (dependency.isOptional()
+              || "test".equals(dependency.getScope()) || "provided".equals(dependency.getScope()))) {
+            continue;
+          }
+          Artifact artifact = dependency.getArtifact();
+          String key = versionlessKey(artifact);
+          if (exclusions.contains(artifact.getGroupId() + ":" + artifact.getArtifactId())
+              || exclusions.contains(artifact.getGroupId() + ":*")) {
+            continue;
+          }
+          String managedVersion = managedVersions.get(key);
+          if (managedVersion != null) {
+            artifact = artifact.setVersion(managedVersion);
+          }
+          if (isRange(artifact.getVersion()) || !visited.add(artifact.toString())) {
+            continue;
+          }
+          Set<String> childExclusions = exclusions;
+          if (!dependency.getExclusions().isEmpty()) {
+            childExclusions = new HashSet<String>(exclusions);
+            for (Exclusion exclusion : dependency.getExclusions()) {
+              childExclusions.add(exclusion.getGroupId() + ":" + exclusion.getArtifactId());
+            }
+          }
+          next.add(new Node(artifact, childExclusions));
+        }
+      }
+      level = next;
+    }
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static String versionlessKey(Artifact artifact) {
+    return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":"
+        + artifact.getClassifier();
+  }
+
+  private static boolean isRange(String version) {
+    return version.startsWith("[") || version.startsWith("(");
+  }
+
+  private static final class Node {
+
+    private final Artifact artifact;
+    private final Set<String> exclusions;
+
+    Node(Artifact artifact, Set<String> exclusions) {
+      this.artifact = artifact;
+      this.exclusions = exclusions;
+    }
+
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import java.io.File;
+
+
+/**
+ * Progress of a file being downloaded from a remote repository.
+ */
+public final class DownloadProgress {
+
+  private final String url;
+  private final File file;
+  private final long totalBytes;
+  private final long transferredBytes;
+  private final long elapsedMillis;
+
+  DownloadProgress(String url, File file, long totalBytes, long transferredBytes, long elapsedMillis) {
+    this.url = url;
+    this.file = file;
+    this.totalBytes = totalBytes;
+    this.transferredBytes = transferredBytes;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return the file of the local repository the download is written to once complete
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return size of the file, or -1 if the repository did not tell it
+   */
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public long getTransferredBytes() {
+    return transferredBytes;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  /**
+   * @return average throughput of the download so far
+   */
+  public double getBytesPerSecond() {
+    return elapsedMillis == 0 ? 0 : transferredBytes * 1000.0 / elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %d/%s bytes in %dms, %.1fKB/s", url, transferredBytes,
+        totalBytes < 0 ? "?" : String.valueOf(totalBytes), elapsedMillis, getBytesPerSecond() / 1024);
+  }
+
+}
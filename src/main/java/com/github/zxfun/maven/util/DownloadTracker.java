@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Follows the downloads of the sessions of a client, file by file. The downloads still running can be listed with their
+ * progress, downloads running longer than the progress interval are logged at that interval, and every completed
+ * download is logged with its throughput.
+ */
+class DownloadTracker extends AbstractTransferListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(DownloadTracker.class);
+
+  private final long progressIntervalNanos;
+  private final ConcurrentMap<TransferResource, Download> downloads = new ConcurrentHashMap<>();
+
+  /**
+   * @param progressIntervalNanos interval between two progress logs of a download, 0 to never log the progress
+   */
+  DownloadTracker(long progressIntervalNanos) {
+    this.progressIntervalNanos = progressIntervalNanos;
+  }
+
+  @Override
+  public void transferStarted(TransferEvent event) {
+    if (event.getRequestType() == TransferEvent.RequestType.GET) {
+      downloads.put(event.getResource(), new Download(System.nanoTime()));
+    }
+  }
+
+  @Override
+  public void transferProgressed(TransferEvent event) {
+    Download download = downloads.get(event.getResource());
+    if (download == null) {
+      return;
+    }
+    // a download is written by a single transfer thread
+    download.transferred = event.getTransferredBytes();
+    if (progressIntervalNanos > 0) {
+      long now = System.nanoTime();
+      if (now - download.lastLog >= progressIntervalNanos) {
+        download.lastLog = now;
+        logger.info("Downloading {}", progress(event.getResource(), download, now));
+      }
+    }
+  }
+
+  @Override
+  public void transferSucceeded(TransferEvent event) {
+    Download download = downloads.remove(event.getResource());
+    if (download != null && logger.isDebugEnabled()) {
+      download.transferred = event.getTransferredBytes();
+      logger.debug("Downloaded {}", progress(event.getResource(), download, System.nanoTime()));
+    }
+  }
+
+  @Override
+  public void transferFailed(TransferEvent event) {
+    downloads.remove(event.getResource());
+  }
+
+  /**
+   * @return the progress of the downloads currently running
+   */
+  List<DownloadProgress> downloads() {
+    long now = System.nanoTime();
+    List<DownloadProgress> progress = new ArrayList<>(downloads.size());
+    for (Map.Entry<TransferResource, Download> entry : downloads.entrySet()) {
+      progress.add(progress(entry.getKey(), entry.getValue(), now));
+    }
+    return progress;
+  }
+
+  private static DownloadProgress progress(TransferResource resource, Download download, long now) {
+    return new DownloadProgress(resource.getRepositoryUrl() + resource.getResourceName(), resource.getFile(),
+        resource.getContentLength(), download.transferred, TimeUnit.NANOSECONDS.toMillis(now - download.start));
+  }
+
+  private static final class Download {
+
+    final long start;
+    volatile long transferred;
+    long lastLog;
+
+    Download(long start) {
+      this.start = start;
+      this.lastLog = start;
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
+
+import java.util.*;
+
+
+/**
+ * Result of an incremental resolution, see {@link MavenClient#resolveIncrementally}. Besides the resolved artifacts and
+ * graph, it keeps the inputs of the resolution and the keys of all the dependencies the dependency management was
+ * applied to, so that the next resolution of the same root knows whether a change of the managed dependencies can
+ * alter it. It also tells which artifacts were added, removed or changed version since the previous result.
+ */
+public final class IncrementalResult {
+
+  private final DependencyRoot root;
+  private final List<RemoteRepository> repositories;
+  private final DependencyNode graph;
+  private final Set<Artifact> artifacts;
+  private final Set<String> managedKeys;
+  private final boolean stable;
+  private final boolean reused;
+  private final Set<Artifact> added;
+  private final Set<Artifact> removed;
+  private final Map<Artifact, Artifact> changed;
+
+  /**
+   * @param previous the result this one replaces, {@code null} for a first resolution
+   */
+  IncrementalResult(DependencyRoot root,
+                    List<RemoteRepository> repositories,
+                    DependencyNode graph,
+                    Set<Artifact> artifacts,
+                    Set<String> managedKeys,
+                    boolean stable,
+                    IncrementalResult previous) {
+    this.root = root;
+    this.repositories = Collections.unmodifiableList(new ArrayList<RemoteRepository>(repositories));
+    this.graph = graph;
+    this.artifacts = Collections.unmodifiableSet(artifacts);
+    this.managedKeys = managedKeys;
+    this.stable = stable;
+    this.reused = false;
+    Map<String, Artifact> before = byVersionlessId(
+        previous == null ? Collections.<Artifact>emptySet() : previous.artifacts);
+    Map<String, Artifact> after = byVersionlessId(artifacts);
+    Set<Artifact> added = new LinkedHashSet<Artifact>();
+    Set<Artifact> removed = new LinkedHashSet<Artifact>();
+    Map<Artifact, Artifact> changed = new LinkedHashMap<Artifact, Artifact>();
+    for (Map.Entry<String, Artifact> entry : after.entrySet()) {
+      Artifact old = before.get(entry.getKey());
+      if (old == null) {
+        added.add(entry.getValue());
+      } else if (!old.getVersion().equals(entry.getValue().getVersion())) {
+        changed.put(old, entry.getValue());
+      }
+    }
+    for (Map.Entry<String, Artifact> entry : before.entrySet()) {
+      if (!after.containsKey(entry.getKey())) {
+        removed.add(entry.getValue());
+      }
+    }
+    this.added = Collections.unmodifiableSet(added);
+    this.removed = Collections.unmodifiableSet(removed);
+    this.changed = Collections.unmodifiableMap(changed);
+  }
+
+  private IncrementalResult(IncrementalResult previous, DependencyRoot root) {
+    this.root = root;
+    this.repositories = previous.repositories;
+    this.graph = previous.graph;
+    this.artifacts = previous.artifacts;
+    this.managedKeys = previous.managedKeys;
+    this.stable = true;
+    this.reused = true;
+    this.added = Collections.emptySet();
+    this.removed = Collections.emptySet();
+    this.changed = Collections.emptyMap();
+  }
+
+  /**
+   * @return the root artifact, with the managed dependencies and the filter it was resolved with
+   */
+  public DependencyRoot getRoot() {
+    return root;
+  }
+
+  /**
+   * @return the additional repositories the root was resolved with
+   */
+  public List<RemoteRepository> getRepositories() {
+    return repositories;
+  }
+
+  /**
+   * @return the resolved dependency graph
+   */
+  public DependencyNode getGraph() {
+    return graph;
+  }
+
+  /**
+   * @return all direct and transitive dependencies of the root, including itself
+   */
+  public Set<Artifact> getArtifacts() {
+    return artifacts;
+  }
+
+  /**
+   * @return {@code true} if the previous result was reused because the change of the managed dependencies could not
+   * alter it
+   */
+  public boolean isReused() {
+    return reused;
+  }
+
+  /**
+   * @return the artifacts absent from the previous result, all artifacts for a first resolution
+   */
+  public Set<Artifact> getAdded() {
+    return added;
+  }
+
+  /**
+   * @return the artifacts of the previous result which are no longer present
+   */
+  public Set<Artifact> getRemoved() {
+    return removed;
+  }
+
+  /**
+   * @return the artifacts whose version changed, from their previous to their new version
+   */
+  public Map<Artifact, Artifact> getChanged() {
+    return changed;
+  }
+
+  /**
+   * @return this result, with the new managed dependencies, if they cannot alter it, or else {@code null}
+   */
+  IncrementalResult reuse(List<Dependency> managedDependencies) {
+    if (!stable) {
+      // snapshots and version ranges may resolve differently from one resolution to the next
+      return null;
+    }
+    Map<String, Dependency> before = byKey(root.getManagedDependencies());
+    Map<String, Dependency> after = byKey(managedDependencies);
+    Set<String> keys = new HashSet<String>(before.keySet());
+    keys.addAll(after.keySet());
+    for (String key : keys) {
+      if (managedKeys.contains(key) && !equal(before.get(key), after.get(key))) {
+        return null;
+      }
+    }
+    return new IncrementalResult(this,
+        new DependencyRoot(root.getArtifact(), managedDependencies, root.getDependencyFilter()));
+  }
+
+  /**
+   * @return the managed dependencies by key, the first one winning like in the dependency management of Aether
+   */
+  private static Map<String, Dependency> byKey(List<Dependency> dependencies) {
+    Map<String, Dependency> result = new HashMap<String, Dependency>();
+    for (Dependency dependency : dependencies) {
+      String key = RecordingDependencyManager.key(dependency.getArtifact());
+      if (!result.containsKey(key)) {
+        result.put(key, dependency);
+      }
+    }
+    return result;
+  }
+
+  private static Map<String, Artifact> byVersionlessId(Set<Artifact> artifacts) {
+    Map<String, Artifact> result = new TreeMap<String, Artifact>();
+    for (Artifact artifact : artifacts) {
+      result.put(ArtifactIdUtils.toVersionlessId(artifact), artifact);
+    }
+    return result;
+  }
+
+  private static boolean equal(Dependency first, Dependency second) {
+    return first == null ? second == null : first.equals(second);
+  }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+
+/**
+ * Replaces {@code ${property}} placeholders anywhere in a value, e.g. {@code ${project.version}-tests}. Values of
+ * properties are interpolated themselves, so chains of properties and placeholders inside placeholder names such as
+ * {@code ${lib.${env}.version}} are resolved as well. A property which refers to itself, directly or not, is left
+ * unresolved, and so are placeholders of unknown properties.
+ *
+ * <p>Every distinct string is parsed once into a {@link Template} which is kept in a bounded cache shared by all
+ * interpolators, and every property is resolved at most once per interpolator. An interpolator is not thread
+ * safe.</p>
+ */
+class Interpolator {
+
+  private static final Logger logger = LoggerFactory.getLogger(Interpolator.class);
+  private static final LruCache<String, Template> templates = new LruCache<String, Template>(10000);
+
+  private final Properties properties;
+  private final Map<String, String> resolved = new HashMap<String, String>();
+  private final Set<String> resolving = new LinkedHashSet<String>();
+
+  Interpolator(Properties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * @param value the value to interpolate, may be {@code null}
+   * @return the interpolated value, the same instance if there was nothing to replace
+   */
+  String interpolate(String value) {
+    if (value == null || value.indexOf("${") < 0) {
+      return value;
+    }
+    return template(value).render(this);
+  }
+
+  /**
+   * @param name name of a property
+   * @return the interpolated value of the property, or {@code null} if it is unknown or cyclic
+   */
+  String property(String name) {
+    if (resolved.containsKey(name)) {
+      return resolved.get(name);
+    }
+    String raw = properties.getProperty(name);
+    if (raw == null) {
+      return null;
+    }
+    if (!resolving.add(name)) {
+      logger.warn("Cyclic property reference {} -> {}", resolving, name);
+      // every property of the cycle is unresolved, whichever of them was looked up first
+      boolean cyclic = false;
+      for (String member : resolving) {
+        cyclic |= member.equals(name);
+        if (cyclic) {
+          resolved.put(member, null);
+        }
+      }
+      return null;
+    }
+    try {
+      String value = interpolate(raw);
+      if (resolved.containsKey(name)) {
+        // found to be part of a cycle while being interpolated
+        return null;
+      }
+      resolved.put(name, value);
+      return value;
+    } finally {
+      resolving.remove(name);
+    }
+  }
+
+  /**
+   * Interpolate a copy of a model: its properties, dependencies, managed dependencies and their exclusions. The
+   * properties of the model are used together with the {@code project.*} coordinates, overridden by the given ones.
+   *
+   * @param model     the model
+   * @param overrides properties taking precedence over the ones of the model
+   * @return interpolated copy of the model
+   */
+  static Model interpolate(Model model, Properties overrides) throws ReflectiveOperationException {
+    Model result = model.clone();
+    Properties properties = new Properties();
+    Parent parent = model.getParent();
+    String groupId = model.getGroupId() != null ? model.getGroupId() : parent == null ? null : parent.getGroupId();
+    String version = model.getVersion() != null ? model.getVersion() : parent == null ? null : parent.getVersion();
+    putIfNotNull(properties, "project.groupId", groupId);
+    putIfNotNull(properties, "project.artifactId", model.getArtifactId());
+    putIfNotNull(properties, "project.version", version);
+    putIfNotNull(properties, "project.packaging", model.getPackaging());
+    if (parent != null) {
+      putIfNotNull(properties, "project.parent.groupId", parent.getGroupId());
+      putIfNotNull(properties, "project.parent.artifactId", parent.getArtifactId());
+      putIfNotNull(properties, "project.parent.version", parent.getVersion());
+    }
+    properties.putAll(model.getProperties());
+    if (overrides != null) {
+      properties.putAll(overrides);
+    }
+
+    Interpolator interpolator = new Interpolator(properties);
+    Properties interpolated = new Properties();
+    for (String name : model.getProperties().stringPropertyNames()) {
+      String value = interpolator.property(name);
+      interpolated.setProperty(name, value != null ? value : model.getProperties().getProperty(name));
+    }
+    result.setProperties(interpolated);
+    interpolator.interpolateAll(result.getDependencies());
+    DependencyManagement dependencyManagement = result.getDependencyManagement();
+    if (dependencyManagement != null) {
+      interpolator.interpolateAll(dependencyManagement.getDependencies());
+    }
+    return result;
+  }
+
+  /**
+   * Interpolate the string properties of the given model object in place
+   */
+  void interpolateInPlace(Object obj) throws ReflectiveOperationException {
+    for (AccessorPlan.Property property : AccessorPlan.of(obj.getClass()).stringProperties()) {
+      String value = (String) property.get(obj);
+      String interpolated = interpolate(value);
+      if (interpolated != value) {
+        property.set(obj, interpolated);
+      }
+    }
+  }
+
+  private void interpolateAll(List<Dependency> dependencies) throws ReflectiveOperationException {
+    for (Dependency dependency : dependencies) {
+      interpolateInPlace(dependency);
+      for (Exclusion exclusion : dependency.getExclusions()) {
+        interpolateInPlace(exclusion);
+      }
+    }
+  }
+
+  private static void putIfNotNull(Properties properties, String name, String value) {
+    if (value != null) {
+      properties.setProperty(name, value);
+    }
+  }
+
+  static Template template(String value) {
+    if (value.indexOf("${") < 0) {
+      return Template.constant(value);
+    }
+    Template template = templates.get(value);
+    if (template == null) {
+      template = Template.parse(value);
+      templates.put(value, template);
+    }
+    return template;
+  }
+
+  /**
+   * A value parsed into literal text and placeholders
+   */
+  static final class Template {
+
+    private static final Template[] NO_NAMES = new Template[0];
+
+    private final String source;
+    // segments alternate with placeholders: literals[0] names[0] literals[1] ... names[n - 1] literals[n]
+    private final String[] literals;
+    private final Template[] names;
+
+    private Template(String source, String[] literals, Template[] names) {
+      this.source = source;
+      this.literals = literals;
+      this.names = names;
+    }
+
+    static Template constant(String value) {
+      return new Template(value, new String[]{value}, NO_NAMES);
+    }
+
+    static Template parse(String value) {
+      List<String> literals = new ArrayList<String>();
+      List<Template> names = new ArrayList<Template>();
+      StringBuilder literal = new StringBuilder();
+      int i = 0;
+      while (i < value.length()) {
+        int start = value.indexOf("${", i);
+        int end = start < 0 ? -1 : closingBrace(value, start + 2);
+        if (end < 0) {
+          literal.append(value, i, value.length());
+          break;
+        }
+        literal.append(value, i, start);
+        literals.add(literal.toString());
+        literal.setLength(0);
+        names.add(template(value.substring(start + 2, end)));
+        i = end + 1;
+      }
+      literals.add(literal.toString());
+      return new Template(value, literals.toArray(new String[literals.size()]), names.toArray(NO_NAMES));
+    }
+
+    String render(Interpolator interpolator) {
+      if (names.length == 0) {
+        return source;
+      }
+      StringBuilder result = new StringBuilder(source.length() + 16);
+      boolean changed = false;
+      for (int i = 0; i < names.length; i++) {
+        result.append(literals[i]);
+        String name = names[i].render(interpolator);
+        String value = interpolator.property(name);
+        if (value != null) {
+          result.append(value);
+          changed = true;
+        } else {
+          result.append("${").append(name).append('}');
+          changed |= name != names[i].source;
+        }
+      }
+      result.append(literals[names.length]);
+      return changed ? result.toString() : source;
+    }
+
+    private static int closingBrace(String value, int from) {
+      int depth = 0;
+      for (int i = from; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '{' && i > 0 && value.charAt(i - 1) == '$') {
+          depth++;
+        } else if (c == '}') {
+          if (depth == 0) {
+            return i;
+          }
+          depth--;
+        }
+      }
+      return -1;
+    }
+
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import java.util.function.Supplier;
+
+
+/**
+ * A value created on first use. Creation happens at most once, even when several threads ask for the value at the
+ * same time.
+ */
+class Lazy<T> {
+
+  private final Supplier<T> supplier;
+  private volatile T value;
+
+  Lazy(Supplier<T> supplier) {
+    this.supplier = supplier;
+  }
+
+  T get() {
+    T result = value;
+    if (result == null) {
+      synchronized (this) {
+        result = value;
+        if (result == null) {
+          result = supplier.get();
+          value = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the value if it was already created, {@code null} otherwise
+   */
+  T getIfCreated() {
+    return value;
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.artifact.Artifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * In memory index of the artifact files in the local repository. The index is built by scanning the repository once
+ * and kept up to date by listening to artifacts being downloaded or installed, so that artifacts missing from the
+ * local repository are recognized without touching the file system. Until the scan is done, every lookup goes to the
+ * file system.
+ */
+class LocalRepositoryIndex extends AbstractRepositoryListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocalRepositoryIndex.class);
+
+  private final File basedir;
+  private final Set<String> paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private volatile boolean ready;
+
+  LocalRepositoryIndex(File basedir) {
+    this.basedir = basedir;
+  }
+
+  /**
+   * Scan the local repository in a background thread
+   */
+  void buildInBackground() {
+    Thread thread = new DaemonThreadFactory("maven-utils-local-index").newThread(new Runnable() {
+      @Override
+      public void run() {
+        build();
+      }
+    });
+    thread.start();
+  }
+
+  void build() {
+    final Path root = basedir.toPath();
+    try {
+      if (Files.isDirectory(root)) {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (isArtifactFile(file.getFileName().toString())) {
+              paths.add(toIndexPath(root.relativize(file).toString()));
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      }
+      ready = true;
+      logger.debug("Indexed {} files in local repository {}", paths.size(), basedir);
+    } catch (IOException e) {
+      logger.error("Failed to index local repository {}", basedir, e);
+    }
+  }
+
+  /**
+   * Find a file in the local repository. Files missing from the index are not looked up on disk once the scan is
+   * done, while indexed files are checked to still exist, in case they were deleted outside of the sessions.
+   *
+   * @param path path of the file relative to the local repository
+   * @return the file, or {@code null} if it is not in the local repository
+   */
+  File find(String path) {
+    path = toIndexPath(path);
+    if (ready && !paths.contains(path)) {
+      return null;
+    }
+    File file = new File(basedir, path);
+    if (file.isFile()) {
+      paths.add(path);
+      return file;
+    }
+    paths.remove(path);
+    return null;
+  }
+
+  boolean isReady() {
+    return ready;
+  }
+
+  @Override
+  public void artifactDownloaded(RepositoryEvent event) {
+    add(event);
+  }
+
+  @Override
+  public void artifactInstalled(RepositoryEvent event) {
+    add(event);
+  }
+
+  private void add(RepositoryEvent event) {
+    Artifact artifact = event.getArtifact();
+    if (event.getException() == null && artifact != null && event.getFile() != null) {
+      paths.add(toIndexPath(event.getSession().getLocalRepositoryManager().getPathForLocalArtifact(artifact)));
+    }
+  }
+
+  private static boolean isArtifactFile(String name) {
+    return !(name.endsWith(".sha1") || name.endsWith(".md5") || name.endsWith(".lastUpdated")
+        || name.startsWith("maven-metadata") || name.equals("_remote.repositories") || name.startsWith("."));
+  }
+
+  private static String toIndexPath(String path) {
+    return File.separatorChar == '/' ? path : path.replace(File.separatorChar, '/');
+  }
+
+}
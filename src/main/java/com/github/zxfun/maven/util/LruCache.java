@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A thread safe map bounded to a maximum number of entries, evicting the least recently used entry first.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+class LruCache<K, V> {
+
+  private final LinkedHashMap<K, V> entries;
+  private long evictions;
+
+  LruCache(final int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+    }
+    this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        if (size() > maxEntries) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  synchronized V put(K key, V value) {
+    return entries.put(key, value);
+  }
+
+  synchronized V remove(K key) {
+    return entries.remove(key);
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * @return a copy of the values, from the least to the most recently used, without touching their access order
+   */
+  synchronized List<V> values() {
+    return new ArrayList<V>(entries.values());
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized long evictions() {
+    return evictions;
+  }
+
+}
@@ -0,0 +1,1129 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.*;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transport.file.FileTransporterFactory;
+import org.eclipse.aether.util.listener.ChainedRepositoryListener;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+import org.eclipse.aether.version.VersionScheme;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+
+/**
+ * Resolves versions, artifacts and dependencies with the settings of one {@code maven.util} configuration. Creating a
+ * client only reads its configuration: the repository system, the local repository index, the resolution cache and
+ * the worker threads are set up on first use. Several clients with different local and remote repositories can be
+ * used side by side in one process.
+ */
+public class MavenClient implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MavenClient.class);
+
+  private static final VersionScheme versionScheme = new GenericVersionScheme();
+  private static final AtomicInteger clients = new AtomicInteger();
+  private static final Pattern UPDATE_POLICY = Pattern.compile("always|never|daily|interval:\\d+");
+  private static final String CONNECTOR_THREADS = "aether.connector.basic.threads";
+  private static final Pattern CHECKSUM_POLICY = Pattern.compile("fail|warn|ignore");
+
+  private final List<RemoteRepository> remoteRepositories;
+  private final List<RemoteRepository> requestRepositories;
+  private final List<RemoteRepository> remoteReleaseRepositories;
+  private final List<RemoteRepository> remoteSnapshotRepositories;
+  private final File localRepositoryDir;
+  private final boolean sharedSessionEnabled;
+  private final int sharedSessionCacheSize;
+  private final long sharedSessionMaxAge;
+  private final boolean offline;
+  private final int maxConnectionsPerRepository;
+  private final int downloadThreads;
+  private final DownloadTracker downloadTracker;
+  private final long asyncTimeout;
+  private final VersionCache versionCache;
+  private final ResolutionMetrics metrics;
+  private final RepositoryRouter router;
+  private final SnapshotMetadataRefresher snapshotRefresher;
+
+  private final Lazy<RepositorySystem> repositorySystem;
+  private final Lazy<LocalRepositoryManager> localRepositoryManager;
+  private final Lazy<DescriptorPrefetcher> descriptorPrefetcher;
+  private final Lazy<LocalRepositoryIndex> localRepositoryIndex;
+  private final Lazy<ResolutionCache> resolutionCache;
+  private final Lazy<AsyncExecutor> asyncExecutor;
+  private final Lazy<ExecutorService> batchExecutor;
+  private final Lazy<ObjectName> metricsRegistration;
+
+  private final Object sessionLock = new Object();
+  private RepositorySystemSession sharedSession;
+  private BoundedRepositoryCache sharedCache;
+  private long sharedSessionCreated;
+  private volatile boolean closed;
+
+  /**
+   * Create a client from the {@code maven.util} section of the application configuration
+   */
+  public MavenClient() {
+    this(ConfigFactory.load(MavenClient.class.getClassLoader()));
+  }
+
+  /**
+   * Create a client from the {@code maven.util} section of the given configuration. Settings missing from it take
+   * their default value.
+   *
+   * @param config configuration containing a {@code maven.util} section
+   */
+  public MavenClient(Config config) {
+    config = config.withFallback(ConfigFactory.defaultReference(MavenClient.class.getClassLoader()))
+        .getConfig("maven.util");
+    remoteRepositories = initRemoteRepositories(config.getConfig("remote-repositories"),
+        config.getConfig("repository-policy"));
+    router = config.getBoolean("remote-repositories.routing.enabled")
+        ? new RepositoryRouter(config.getConfig("remote-repositories.routing")) : null;
+    localRepositoryDir = new File(config.getString("local-repository"));
+    sharedSessionEnabled = config.getBoolean("session.shared");
+    sharedSessionCacheSize = config.getInt("session.cache-size");
+    sharedSessionMaxAge = config.getDuration("session.max-age", TimeUnit.MILLISECONDS);
+    final int batchThreads = config.getInt("batch.threads");
+    batchExecutor = new Lazy<>(
+        () -> Executors.newFixedThreadPool(batchThreads, new DaemonThreadFactory("maven-utils-batch")));
+    offline = config.getBoolean("offline");
+    maxConnectionsPerRepository = config.getInt("max-connections-per-repository");
+    downloadThreads = config.getInt("download.threads");
+    downloadTracker = new DownloadTracker(config.getDuration("download.progress-interval", TimeUnit.NANOSECONDS));
+    asyncTimeout = config.getDuration("async.timeout", TimeUnit.MILLISECONDS);
+    repositorySystem = new Lazy<>(MavenClient::initRepositorySystem);
+    // the simple manager considers every file present in the local repository as available, regardless of the
+    // repository it was downloaded from, so no remote repository is needed to serve it. It is created without the
+    // repository system, so that artifacts already present locally never require one.
+    localRepositoryManager = new Lazy<>(() -> {
+      try {
+        return new SimpleLocalRepositoryManagerFactory().newInstance(
+            MavenRepositorySystemUtils.newSession(), new LocalRepository(localRepositoryDir, "simple"));
+      } catch (NoLocalRepositoryManagerException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    String collector = config.getString("collector.mode");
+    if ("parallel".equals(collector)) {
+      final int threads = config.getInt("collector.threads");
+      descriptorPrefetcher = new Lazy<>(() -> new DescriptorPrefetcher(repositorySystem.get(), threads));
+    } else if ("default".equals(collector)) {
+      descriptorPrefetcher = null;
+    } else {
+      throw new IllegalArgumentException("Unknown maven.util.collector.mode: " + collector);
+    }
+    final int asyncThreads = config.getInt("async.threads");
+    asyncExecutor = new Lazy<>(() -> new AsyncExecutor(asyncThreads));
+    if (config.getBoolean("local-repository-index")) {
+      localRepositoryIndex = new Lazy<>(() -> {
+        LocalRepositoryIndex index = new LocalRepositoryIndex(localRepositoryDir);
+        index.buildInBackground();
+        return index;
+      });
+    } else {
+      localRepositoryIndex = null;
+    }
+    if (config.getBoolean("resolution-cache.enabled")) {
+      String directory = config.getString("resolution-cache.directory");
+      final File cacheDir =
+          directory.length() == 0 ? new File(localRepositoryDir, ".resolution-cache") : new File(directory);
+      final long maxSize = config.getBytes("resolution-cache.max-size");
+      resolutionCache = new Lazy<>(() -> new ResolutionCache(cacheDir, maxSize));
+    } else {
+      resolutionCache = null;
+    }
+    if (config.getBoolean("version-cache.enabled")) {
+      versionCache = new VersionCache(config.getInt("version-cache.max-entries"),
+          config.getDuration("version-cache.ttl", TimeUnit.MILLISECONDS),
+          config.getDuration("version-cache.negative-ttl", TimeUnit.MILLISECONDS));
+    } else {
+      versionCache = null;
+    }
+    if (config.getBoolean("metrics.enabled")) {
+      metrics = new ResolutionMetrics();
+      if (config.getBoolean("metrics.jmx")) {
+        String name = config.getString("metrics.jmx-name");
+        final String jmxName = name.length() == 0 ? "client-" + clients.incrementAndGet() : name;
+        metricsRegistration = new Lazy<>(() -> registerMetrics(jmxName));
+      } else {
+        metricsRegistration = null;
+      }
+    } else {
+      metrics = null;
+      metricsRegistration = null;
+    }
+    if (config.getBoolean("snapshot-refresh.enabled") && !offline) {
+      snapshotRefresher = new SnapshotMetadataRefresher(remoteRepositories,
+          config.getInt("snapshot-refresh.max-entries"),
+          config.getDuration("snapshot-refresh.interval", TimeUnit.MILLISECONDS),
+          config.getDuration("snapshot-refresh.idle-time", TimeUnit.MILLISECONDS),
+          repositorySystem::get, this::createSession);
+    } else {
+      snapshotRefresher = null;
+    }
+    List<RemoteRepository> requestRepos = new LinkedList<RemoteRepository>();
+    List<RemoteRepository> releaseRepos = new LinkedList<RemoteRepository>();
+    List<RemoteRepository> snapshotRepos = new LinkedList<RemoteRepository>();
+    for (RemoteRepository repository : remoteRepositories) {
+      if (snapshotRefresher != null) {
+        repository = snapshotRefresher.foreground(repository);
+      }
+      requestRepos.add(repository);
+      if (repository.getPolicy(false).isEnabled()) {
+        releaseRepos.add(repository);
+      }
+      if (repository.getPolicy(true).isEnabled()) {
+        snapshotRepos.add(repository);
+      }
+    }
+    requestRepositories = Collections.unmodifiableList(requestRepos);
+    remoteReleaseRepositories = Collections.unmodifiableList(releaseRepos);
+    remoteSnapshotRepositories = Collections.unmodifiableList(snapshotRepos);
+  }
+
+  private static RepositorySystem initRepositorySystem() {
+    DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+    locator.setService(ArtifactDescriptorReader.class, CachingArtifactDescriptorReader.class);
+    locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+    locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+    locator.addService(TransporterFactory.class, ThrottlingTransporterFactory.class);
+    locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
+      @Override
+      public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
+        logger.error("Failed to create service for type {}, impl {}", type, impl, exception);
+      }
+    });
+    return locator.getService(RepositorySystem.class);
+  }
+
+  /**
+   * @param repositories the {@code maven.util.remote-repositories} section, mapping ids to urls or to objects with a
+   *                     url and release and snapshot policies
+   * @param defaults     the {@code maven.util.repository-policy} section, completing the policies
+   */
+  private static List<RemoteRepository> initRemoteRepositories(Config repositories, Config defaults) {
+    List<RemoteRepository> repositoryList = new LinkedList<RemoteRepository>();
+    for (Map.Entry<String, ConfigValue> entry : repositories.root().entrySet()) {
+      String key = entry.getKey();
+      if ("routing".equals(key)) {
+        continue;
+      }
+      Config repository = entry.getValue().valueType() == ConfigValueType.OBJECT
+          ? repositories.getConfig(ConfigUtil.joinPath(key))
+          : ConfigFactory.empty().withValue("url", entry.getValue());
+      String url = repository.getString("url");
+      // unless enabled explicitly, a repository whose url ends with "snapshots" only serves snapshots
+      boolean snapshots = url.endsWith("snapshots");
+      repositoryList.add(
+          new RemoteRepository.Builder(key, "default", url)
+              .setReleasePolicy(policy(repository, defaults, "releases", !snapshots))
+              .setSnapshotPolicy(policy(repository, defaults, "snapshots", snapshots))
+              .build()
+      );
+    }
+    return Collections.unmodifiableList(repositoryList);
+  }
+
+  private static RepositoryPolicy policy(Config repository, Config defaults, String kind, boolean enabled) {
+    // looked up setting by setting rather than through withFallback, which a repository object overriding the url
+    // of a default repository would ignore
+    String enabledPath = kind + ".enabled";
+    String updatePath = kind + ".update-policy";
+    String checksumPath = kind + ".checksum-policy";
+    ConfigValue updatePolicy = (repository.hasPath(updatePath) ? repository : defaults).getValue(updatePath);
+    if (!UPDATE_POLICY.matcher(updatePolicy.unwrapped().toString()).matches()) {
+      throw new ConfigException.BadValue(updatePolicy.origin(), updatePath,
+          "expected always, never, daily or interval:<minutes> but got " + updatePolicy.unwrapped());
+    }
+    ConfigValue checksumPolicy = (repository.hasPath(checksumPath) ? repository : defaults).getValue(checksumPath);
+    if (!CHECKSUM_POLICY.matcher(checksumPolicy.unwrapped().toString()).matches()) {
+      throw new ConfigException.BadValue(checksumPolicy.origin(), checksumPath,
+          "expected fail, warn or ignore but got " + checksumPolicy.unwrapped());
+    }
+    return new RepositoryPolicy(repository.hasPath(enabledPath) ? repository.getBoolean(enabledPath) : enabled,
+        updatePolicy.unwrapped().toString(), checksumPolicy.unwrapped().toString());
+  }
+
+  private ObjectName registerMetrics(String name) {
+    try {
+      ObjectName objectName = new ObjectName("com.github.zxfun.maven.util:type=ResolutionMetrics,name="
+          + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+      return objectName;
+    } catch (JMException e) {
+      logger.error("Failed to register the resolution metrics of {}", name, e);
+      // registration is not attempted again
+      return ObjectName.WILDCARD;
+    }
+  }
+
+  /**
+   * @return the remote repositories of this client, in the order they are configured. With
+   * {@code maven.util.remote-repositories.routing} enabled, they are searched from the healthiest to the least healthy.
+   */
+  public List<RemoteRepository> remoteRepositories() {
+    return remoteRepositories;
+  }
+
+  /**
+   * @return latency, error rate and circuit breaker state of the remote repositories, in the order they are searched,
+   * or {@code null} if {@code maven.util.remote-repositories.routing} is disabled
+   */
+  public List<RepositoryHealth> repositoryHealth() {
+    return router == null ? null : router.health(remoteRepositories);
+  }
+
+  /**
+   * @return the progress of the files currently downloaded by this client
+   */
+  public List<DownloadProgress> downloads() {
+    return downloadTracker.downloads();
+  }
+
+  /**
+   * Check the repositories for updates of the snapshot metadata used recently now, instead of waiting for the next
+   * scheduled refresh. Does nothing unless {@code maven.util.snapshot-refresh} is enabled.
+   */
+  public void refreshSnapshotMetadata() {
+    if (snapshotRefresher != null) {
+      snapshotRefresher.refresh();
+    }
+  }
+
+  public RepositorySystemSession newSession() {
+    return createSession();
+  }
+
+  private DefaultRepositorySystemSession createSession() {
+    DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+    session.setLocalRepositoryManager(localRepositoryManager.get());
+    session.setOffline(offline);
+    session.setConfigProperty(ThrottlingTransporterFactory.MAX_CONNECTIONS, maxConnectionsPerRepository);
+    session.setConfigProperty(CONNECTOR_THREADS, downloadThreads);
+    if (localRepositoryIndex != null) {
+      session.setRepositoryListener(localRepositoryIndex.get());
+    }
+    if (router != null) {
+      session.setConfigProperty(RepositoryRouter.ROUTER, router);
+      session.setTransferListener(router.transferListener());
+    }
+    session.setTransferListener(ChainedTransferListener.newInstance(session.getTransferListener(), downloadTracker));
+    if (snapshotRefresher != null) {
+      session.setRepositoryListener(
+          ChainedRepositoryListener.newInstance(session.getRepositoryListener(), snapshotRefresher));
+    }
+    if (metrics != null) {
+      if (metricsRegistration != null) {
+        metricsRegistration.get();
+      }
+      session.setRepositoryListener(ChainedRepositoryListener.newInstance(session.getRepositoryListener(), metrics));
+      session.setTransferListener(
+          ChainedTransferListener.newInstance(session.getTransferListener(), metrics.transferListener()));
+    }
+    return session;
+  }
+
+  /**
+   * Get the session used by all operations. When {@code maven.util.session.shared} is enabled, a single read only
+   * session backed by a bounded {@link org.eclipse.aether.RepositoryCache} is reused across calls, so descriptors,
+   * models and version metadata parsed by one call are served from memory to the next. The shared session is
+   * rebuilt once it is older than {@code maven.util.session.max-age}.
+   *
+   * @return the shared session, or a new session if sharing is disabled
+   */
+  public RepositorySystemSession session() {
+    if (!sharedSessionEnabled) {
+      return newSession();
+    }
+    synchronized (sessionLock) {
+      long now = System.currentTimeMillis();
+      if (sharedSession == null || now - sharedSessionCreated > sharedSessionMaxAge) {
+        DefaultRepositorySystemSession session = createSession();
+        sharedCache = new BoundedRepositoryCache(sharedSessionCacheSize);
+        session.setCache(sharedCache);
+        session.setReadOnly();
+        sharedSession = session;
+        sharedSessionCreated = now;
+      }
+      return sharedSession;
+    }
+  }
+
+  /**
+   * Discard the shared session and everything cached in it. The next call builds a fresh session.
+   */
+  public void invalidateSession() {
+    synchronized (sessionLock) {
+      if (sharedCache != null) {
+        sharedCache.clear();
+      }
+      sharedCache = null;
+      sharedSession = null;
+    }
+  }
+
+  /**
+   * Get all versions for the given artifact
+   *
+   * @param groupId       group id of the artifact
+   * @param artifactId    artifact id of the artifact
+   * @param versionPrefix version prefix for searching
+   * @param snapshot      only snapshot/release versions
+   * @return list of versions
+   */
+  public List<Version> allVersions(String groupId, String artifactId, String versionPrefix, boolean snapshot) {
+    try {
+      return versions(session(), groupId, artifactId, versionPrefix, snapshot);
+    } catch (VersionRangeResolutionException | InvalidVersionSpecificationException e) {
+      logger.error("Failed to get all versions for {}:{}, {}, {}", groupId, artifactId, versionPrefix, snapshot, e);
+      return Collections.emptyList();
+    }
+  }
+
+  private List<Version> versions(RepositorySystemSession session,
+                                 String groupId,
+                                 String artifactId,
+                                 String versionPrefix,
+                                 boolean snapshot)
+      throws VersionRangeResolutionException, InvalidVersionSpecificationException {
+    String versionRange = (versionPrefix == null || versionPrefix.length() == 0) ? "[0,)" : "[" + versionPrefix + ".*]";
+    if (versionCache == null) {
+      return Collections.unmodifiableList(
+          resolveVersions(session, groupId, artifactId, versionRange, snapshot).getVersions());
+    }
+    List<Version> versions = versionCache.get(groupId, artifactId, snapshot);
+    if (versions == null) {
+      VersionRangeResult result = resolveVersions(session, groupId, artifactId, "[0,)", snapshot);
+      versions = Collections.unmodifiableList(result.getVersions());
+      // a listing missing the versions of a repository which could not be read is not kept
+      if (isComplete(result)) {
+        versionCache.put(groupId, artifactId, snapshot, versions);
+      }
+    }
+    if (versionPrefix == null || versionPrefix.length() == 0) {
+      return versions;
+    }
+    VersionConstraint constraint = versionScheme.parseVersionConstraint(versionRange);
+    List<Version> matched = new ArrayList<Version>();
+    for (Version version : versions) {
+      if (constraint.containsVersion(version)) {
+        matched.add(version);
+      }
+    }
+    return Collections.unmodifiableList(matched);
+  }
+
+  /**
+   * @return {@code true} if every repository was read, the metadata of the artifact being absent from some of them
+   */
+  private static boolean isComplete(VersionRangeResult result) {
+    for (Exception exception : result.getExceptions()) {
+      if (!(exception instanceof MetadataNotFoundException)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private VersionRangeResult resolveVersions(RepositorySystemSession session,
+                                        String groupId,
+                                        String artifactId,
+                                        String versionRange,
+                                        boolean snapshot)
+      throws VersionRangeResolutionException {
+    Artifact artifact = new DefaultArtifact(groupId + ":" + artifactId + ":" + versionRange);
+    VersionRangeRequest versionRangeRequest = new VersionRangeRequest(
+        artifact, routed(snapshot ? remoteSnapshotRepositories : remoteReleaseRepositories), ""
+    );
+    long start = System.nanoTime();
+    try {
+      return repositorySystem.get().resolveVersionRange(session, versionRangeRequest);
+    } finally {
+      time("versions", start);
+    }
+  }
+
+  public List<Version> allVersions(String groupId, String artifactId, String versionPrefix) {
+    return allVersions(groupId, artifactId, versionPrefix, false);
+  }
+
+  public List<Version> allVersions(String groupId, String artifactId, boolean snapshot) {
+    return allVersions(groupId, artifactId, null, snapshot);
+  }
+
+  public List<Version> allVersions(String groupId, String artifactId) {
+    return allVersions(groupId, artifactId, false);
+  }
+
+  /**
+   * @return statistics of the version listing cache, or {@code null} if {@code maven.util.version-cache} is disabled
+   */
+  public VersionCacheStats versionCacheStats() {
+    return versionCache == null ? null : versionCache.stats();
+  }
+
+  /**
+   * Drop all version listings cached by {@link #allVersions}
+   */
+  public void invalidateVersionCache() {
+    if (versionCache != null) {
+      versionCache.clear();
+    }
+  }
+
+  /**
+   * Drop the release and snapshot version listings of an artifact cached by {@link #allVersions}, for example after
+   * deploying a new version of it
+   *
+   * @param groupId    group id of the artifact
+   * @param artifactId artifact id of the artifact
+   */
+  public void invalidateVersionCache(String groupId, String artifactId) {
+    if (versionCache != null) {
+      versionCache.invalidate(groupId, artifactId);
+    }
+  }
+
+  /**
+   * @return transfer, local repository and phase statistics of this client, or {@code null} if
+   * {@code maven.util.metrics} is disabled
+   */
+  public ResolutionStats resolutionStats() {
+    return metrics == null ? null : metrics.getStats();
+  }
+
+  /**
+   * Start counting the statistics returned by {@link #resolutionStats()} from zero again
+   */
+  public void resetResolutionStats() {
+    if (metrics != null) {
+      metrics.reset();
+    }
+  }
+
+  /**
+   * Check all entries of the persistent resolution cache and remove the ones which are corrupted or refer to
+   * artifact files no longer present in the local repository
+   *
+   * @return number of entries removed
+   */
+  public int verifyResolutionCache() {
+    return resolutionCache == null ? 0 : resolutionCache.get().verify();
+  }
+
+  /**
+   * Remove all entries of the persistent resolution cache
+   */
+  public void invalidateResolutionCache() {
+    if (resolutionCache != null) {
+      resolutionCache.get().clear();
+    }
+  }
+
+  /**
+   * Resolve a given artifact from remote repositories and download it to local repository
+   *
+   * @param artifact               the given artifact to be resolved
+   * @param additionalRepositories additional remote repositories used to resolve the artifact
+   * @return resolved artifact
+   */
+  public Artifact resolveArtifact(Artifact artifact, List<RemoteRepository> additionalRepositories) {
+    Artifact local = findLocalArtifact(artifact);
+    if (local != null) {
+      return local;
+    }
+    try {
+      return resolveArtifact(session(), artifact, additionalRepositories);
+    } catch (ArtifactResolutionException e) {
+      logger.error("Failed to resolve artifact {}", artifact, e);
+      return null;
+    }
+  }
+
+  private Artifact resolveArtifact(RepositorySystemSession session,
+                                   Artifact artifact,
+                                   List<RemoteRepository> additionalRepositories)
+      throws ArtifactResolutionException {
+    ArtifactRequest artifactRequest =
+        new ArtifactRequest(artifact, routed(repositories(additionalRepositories)), "");
+    long start = System.nanoTime();
+    try {
+      return repositorySystem.get().resolveArtifact(session, artifactRequest).getArtifact();
+    } finally {
+      time("artifact", start);
+    }
+  }
+
+  public Artifact resolveArtifact(Artifact artifact) {
+    return resolveArtifact(artifact, Collections.<RemoteRepository>emptyList());
+  }
+
+  /**
+   * Look up an artifact directly in the local repository, without going through the repository system. Snapshots
+   * are only looked up this way when offline, as they may need to be updated otherwise.
+   *
+   * @param artifact the artifact to look up
+   * @return the artifact with its file set, or {@code null} if it is not in the local repository
+   */
+  private Artifact findLocalArtifact(Artifact artifact) {
+    String version = artifact.getVersion();
+    if ((artifact.isSnapshot() && !offline) || version.startsWith("[") || version.startsWith("(")) {
+      return null;
+    }
+    String path = localRepositoryManager.get().getPathForLocalArtifact(artifact);
+    File file = localRepositoryIndex != null
+        ? localRepositoryIndex.get().find(path) : new File(localRepositoryDir, path);
+    if (file == null || !file.isFile()) {
+      return null;
+    }
+    if (metrics != null) {
+      metrics.localHit();
+    }
+    return artifact.setFile(file);
+  }
+
+  /**
+   * Get all transitive dependencies for given artifact including itself
+   *
+   * @param artifact               the root artifact
+   * @param managedDependencies    managed dependencies used to resolve transitive dependencies
+   * @param dependencyFilter       filter out transitive dependencies meet the requirement
+   * @param additionalRepositories additional repositories used to resolve transitive dependencies
+   * @return all transitive dependencies for the given artifact
+   */
+  public Set<Artifact> allDependencies(Artifact artifact,
+                                       List<Dependency> managedDependencies,
+                                       DependencyFilter dependencyFilter,
+                                       List<RemoteRepository> additionalRepositories) {
+    try {
+      return resolveDependencies(dependencySession(), artifact, managedDependencies, dependencyFilter,
+          repositories(additionalRepositories));
+    } catch (DependencyResolutionException e) {
+      logger.error("Failed to resolve transitive dependencies for {}", artifact, e);
+      return Collections.emptySet();
+    }
+  }
+
+  public Set<Artifact> allDependencies(Artifact artifact,
+                                       List<Dependency> managedDependencies,
+                                       DependencyFilter dependencyFilter) {
+    return allDependencies(artifact, managedDependencies, dependencyFilter, Collections.<RemoteRepository>emptyList());
+  }
+
+  public Set<Artifact> allDependencies(Artifact artifact, List<Dependency> managedDependencies) {
+    return allDependencies(artifact, managedDependencies, new MavenUtils.EmptyDependencyFilter());
+  }
+
+  public Set<Artifact> allDependencies(Artifact artifact, DependencyFilter dependencyFilter) {
+    return allDependencies(artifact, Collections.<Dependency>emptyList(), dependencyFilter);
+  }
+
+  public Set<Artifact> allDependencies(Artifact artifact) {
+    return allDependencies(artifact, Collections.<Dependency>emptyList());
+  }
+
+  /**
+   * Get all transitive dependencies for many roots at once. Roots are resolved concurrently on
+   * {@code maven.util.batch.threads} threads sharing one session, so descriptors and metadata fetched for one root
+   * are reused by the others, and equal roots are resolved only once.
+   *
+   * @param roots                  the roots to resolve
+   * @param additionalRepositories additional repositories used to resolve transitive dependencies
+   * @return the dependencies of every resolved root and the failure of every root which could not be resolved
+   * @throws IllegalStateException if the client is closed
+   */
+  public BatchResult allDependencies(Collection<DependencyRoot> roots, List<RemoteRepository> additionalRepositories) {
+    checkOpen();
+    final RepositorySystemSession session = cachingSession();
+    final List<RemoteRepository> repositories = repositories(additionalRepositories);
+    Map<DependencyRoot, Future<Set<Artifact>>> futures = new LinkedHashMap<DependencyRoot, Future<Set<Artifact>>>();
+    Map<DependencyRoot, Set<Artifact>> results = new LinkedHashMap<DependencyRoot, Set<Artifact>>();
+    Map<DependencyRoot, Exception> failures = new LinkedHashMap<DependencyRoot, Exception>();
+    ExecutorService executor = batchExecutor.get();
+    try {
+      for (final DependencyRoot root : roots) {
+        if (futures.containsKey(root)) continue;
+        futures.put(root, executor.submit(new Callable<Set<Artifact>>() {
+          @Override
+          public Set<Artifact> call() throws Exception {
+            return resolveDependencies(session, root.getArtifact(), root.getManagedDependencies(),
+                root.getDependencyFilter(), repositories);
+          }
+        }));
+      }
+      for (Map.Entry<DependencyRoot, Future<Set<Artifact>>> entry : futures.entrySet()) {
+        try {
+          results.put(entry.getKey(), entry.getValue().get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          failures.put(entry.getKey(), cause instanceof Exception ? (Exception) cause : e);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      for (Map.Entry<DependencyRoot, Future<Set<Artifact>>> entry : futures.entrySet()) {
+        if (!results.containsKey(entry.getKey()) && !failures.containsKey(entry.getKey())) {
+          entry.getValue().cancel(true);
+          failures.put(entry.getKey(), e);
+        }
+      }
+    }
+    return new BatchResult(results, failures);
+  }
+
+  public BatchResult allDependencies(Collection<DependencyRoot> roots) {
+    return allDependencies(roots, Collections.<RemoteRepository>emptyList());
+  }
+
+  /**
+   * @throws IllegalStateException if the client is closed, its worker threads being stopped
+   */
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("client is closed");
+    }
+  }
+
+  private List<RemoteRepository> routed(List<RemoteRepository> repositories) {
+    return router == null ? repositories : router.order(repositories);
+  }
+
+  /**
+   * @return the configured and additional repositories in configuration order, which the resolution cache keys depend
+   * on. The routed order is only applied to the requests.
+   */
+  private List<RemoteRepository> repositories(List<RemoteRepository> additionalRepositories) {
+    List<RemoteRepository> repositories = new LinkedList<RemoteRepository>();
+    repositories.addAll(requestRepositories);
+    repositories.addAll(additionalRepositories);
+    return repositories;
+  }
+
+  private Set<Artifact> resolveDependencies(RepositorySystemSession session,
+                                            Artifact artifact,
+                                            List<Dependency> managedDependencies,
+                                            DependencyFilter dependencyFilter,
+                                            List<RemoteRepository> repositories)
+      throws DependencyResolutionException {
+    ResolutionCache cache = resolutionCache == null ? null : resolutionCache.get();
+    String cacheKey = cache == null ? null : cache.key(artifact, managedDependencies, dependencyFilter, repositories);
+    if (cacheKey != null) {
+      ResolutionCache.Entry entry = cache.get(cacheKey);
+      if (entry != null) {
+        return entry.getArtifacts();
+      }
+    }
+    DependencyResult dependencyResult = resolve(session, artifact, managedDependencies, dependencyFilter, repositories);
+    Set<Artifact> results = artifacts(dependencyResult);
+    if (cacheKey != null) {
+      cache.put(cacheKey, dependencyResult.getRoot(), results);
+    }
+    return Collections.unmodifiableSet(results);
+  }
+
+  private DependencyResult resolve(RepositorySystemSession session,
+                                   Artifact artifact,
+                                   List<Dependency> managedDependencies,
+                                   DependencyFilter dependencyFilter,
+                                   List<RemoteRepository> repositories) throws DependencyResolutionException {
+    repositories = routed(repositories);
+    prefetch(session, artifact, managedDependencies, repositories);
+    // collection and artifact resolution are requested separately, to time them separately
+    CollectResult collectResult;
+    try {
+      collectResult = collect(session, artifact, managedDependencies, repositories);
+    } catch (DependencyCollectionException e) {
+      DependencyResult failed = new DependencyResult(new DependencyRequest(e.getResult().getRoot(), dependencyFilter));
+      failed.setRoot(e.getResult().getRoot());
+      failed.setCycles(e.getResult().getCycles());
+      failed.setCollectExceptions(e.getResult().getExceptions());
+      throw new DependencyResolutionException(failed, e);
+    }
+    DependencyRequest dependencyRequest = new DependencyRequest(collectResult.getRoot(), dependencyFilter);
+    long start = System.nanoTime();
+    try {
+      return repositorySystem.get().resolveDependencies(session, dependencyRequest);
+    } finally {
+      time("resolve", start);
+    }
+  }
+
+  private static Set<Artifact> artifacts(DependencyResult dependencyResult) {
+    Set<Artifact> results = new HashSet<Artifact>();
+    for (ArtifactResult result : dependencyResult.getArtifactResults()) {
+      results.add(result.getArtifact());
+    }
+    return results;
+  }
+
+  /**
+   * Resolve the dependencies of a root, keeping what is needed to resolve it again incrementally with other managed
+   * dependencies
+   *
+   * @param root                   the root artifact, its managed dependencies and filter
+   * @param additionalRepositories repositories to use in addition to the configured ones
+   * @return the resolved graph and artifacts, all reported as added
+   * @throws DependencyResolutionException if the dependencies cannot be resolved
+   */
+  public IncrementalResult resolveIncrementally(DependencyRoot root, List<RemoteRepository> additionalRepositories)
+      throws DependencyResolutionException {
+    return resolveIncrementally(null, root, additionalRepositories);
+  }
+
+  public IncrementalResult resolveIncrementally(DependencyRoot root) throws DependencyResolutionException {
+    return resolveIncrementally(root, Collections.<RemoteRepository>emptyList());
+  }
+
+  /**
+   * Resolve the root of a previous result again with other managed dependencies. The result is the same as a full
+   * resolution. If none of the changed managed dependencies was met by the dependency management during the previous
+   * resolution, the change cannot alter it and the previous graph is returned without collecting anything. Otherwise
+   * the graph is collected again, with the descriptors already read served from the caches of the client.
+   *
+   * @param previous            the previous result for the root
+   * @param managedDependencies the new managed dependencies
+   * @return the resolved graph and artifacts, with the artifacts added, removed or changed since the previous result
+   * @throws DependencyResolutionException if the dependencies cannot be resolved
+   */
+  public IncrementalResult resolveIncrementally(IncrementalResult previous, List<Dependency> managedDependencies)
+      throws DependencyResolutionException {
+    IncrementalResult reused = previous.reuse(managedDependencies);
+    if (reused != null) {
+      logger.debug("Managed dependency changes do not affect {}, reusing its previous resolution", previous.getRoot());
+      return reused;
+    }
+    DependencyRoot root = new DependencyRoot(previous.getRoot().getArtifact(), managedDependencies,
+        previous.getRoot().getDependencyFilter());
+    return resolveIncrementally(previous, root, previous.getRepositories());
+  }
+
+  private IncrementalResult resolveIncrementally(IncrementalResult previous,
+                                                 DependencyRoot root,
+                                                 List<RemoteRepository> additionalRepositories)
+      throws DependencyResolutionException {
+    Set<String> managedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    managedKeys.add(RecordingDependencyManager.key(root.getArtifact()));
+    DefaultRepositorySystemSession session = new DefaultRepositorySystemSession(dependencySession());
+    session.setDependencyManager(new RecordingDependencyManager(session.getDependencyManager(), managedKeys));
+    DependencyResult dependencyResult = resolve(session, root.getArtifact(), root.getManagedDependencies(),
+        root.getDependencyFilter(), repositories(additionalRepositories));
+    return new IncrementalResult(root, additionalRepositories, dependencyResult.getRoot(), artifacts(dependencyResult),
+        managedKeys, ResolutionCache.isStable(dependencyResult.getRoot()), previous);
+  }
+
+  private void prefetch(RepositorySystemSession session,
+                        Artifact artifact,
+                        List<Dependency> managedDependencies,
+                        List<RemoteRepository> repositories) {
+    if (descriptorPrefetcher == null) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      descriptorPrefetcher.get().prefetch(session, artifact, managedDependencies, repositories);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      time("prefetch", start);
+    }
+  }
+
+  private CollectResult collect(RepositorySystemSession session,
+                                Artifact artifact,
+                                List<Dependency> managedDependencies,
+                                List<RemoteRepository> repositories) throws DependencyCollectionException {
+    CollectRequest collectRequest = new CollectRequest(new Dependency(artifact, ""), repositories);
+    collectRequest.setManagedDependencies(managedDependencies);
+    long start = System.nanoTime();
+    try {
+      return repositorySystem.get().collectDependencies(session, collectRequest);
+    } finally {
+      time("collect", start);
+    }
+  }
+
+  /**
+   * Traverse the dependency graph of a root, streaming its nodes to a visitor. Unlike {@link #allDependencies}, the
+   * graph is kept: every node comes with its scope and the chain of parents leading to it. Artifacts are resolved
+   * one by one right before their node is visited, so a traversal stopped early only downloads the artifacts of the
+   * nodes visited so far.
+   *
+   * @param root    the root artifact, its managed dependencies and the filter of the nodes to visit
+   * @param options depth limit, collect only mode and additional repositories
+   * @param visitor receives the nodes
+   * @return {@code true} if the whole graph was traversed, {@code false} if the visitor stopped the traversal
+   * @throws RepositoryException if the graph cannot be collected or an artifact cannot be resolved
+   */
+  public boolean traverse(DependencyRoot root, TraversalOptions options, DependencyGraphVisitor visitor)
+      throws RepositoryException {
+    List<RemoteRepository> repositories = routed(repositories(options.getRepositories()));
+    RepositorySystemSession session = dependencySession();
+    if (options.getMaxDepth() < Integer.MAX_VALUE) {
+      DefaultRepositorySystemSession limited = new DefaultRepositorySystemSession(session);
+      limited.setDependencySelector(new DepthLimitingSelector(session.getDependencySelector(), options.getMaxDepth()));
+      session = limited;
+    } else {
+      // the prefetcher would fetch the descriptors of the whole graph, whatever the depth limit
+      prefetch(session, root.getArtifact(), root.getManagedDependencies(), repositories);
+    }
+    CollectResult collectResult = collect(session, root.getArtifact(), root.getManagedDependencies(), repositories);
+    final RepositorySystemSession resolveSession = session;
+    DependencyGraphWalker.NodeResolver resolver = options.isResolveArtifacts()
+        ? node -> resolveNode(resolveSession, node) : null;
+    return new DependencyGraphWalker(visitor, root.getDependencyFilter(), options.getMaxDepth(), resolver)
+        .walk(collectResult.getRoot());
+  }
+
+  public boolean traverse(DependencyRoot root, DependencyGraphVisitor visitor) throws RepositoryException {
+    return traverse(root, new TraversalOptions(), visitor);
+  }
+
+  private void resolveNode(RepositorySystemSession session, DependencyNode node) throws ArtifactResolutionException {
+    Artifact local = findLocalArtifact(node.getArtifact());
+    if (local != null) {
+      node.setArtifact(local);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      node.setArtifact(repositorySystem.get().resolveArtifact(session, new ArtifactRequest(node)).getArtifact());
+    } finally {
+      time("artifact", start);
+    }
+  }
+
+  private void time(String phase, long start) {
+    if (metrics != null) {
+      metrics.time(phase, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return the session to resolve the dependencies of one root with
+   */
+  private RepositorySystemSession dependencySession() {
+    return descriptorPrefetcher == null ? session() : cachingSession();
+  }
+
+  /**
+   * A session with a cache, to be shared by the requests of one batch or one parallel collection. Unless the shared
+   * session is enabled, it gets its own cache which is discarded with the session once the caller is done.
+   */
+  private RepositorySystemSession cachingSession() {
+    if (sharedSessionEnabled) {
+      return session();
+    }
+    DefaultRepositorySystemSession session = createSession();
+    session.setCache(new BoundedRepositoryCache(sharedSessionCacheSize));
+    session.setReadOnly();
+    return session;
+  }
+
+  /**
+   * Asynchronous {@link #allVersions(String, String, String, boolean)}. Unlike the blocking method, the returned future
+   * completes exceptionally if the versions cannot be resolved.
+   *
+   * @param groupId       group id of the artifact
+   * @param artifactId    artifact id of the artifact
+   * @param versionPrefix version prefix for searching
+   * @param snapshot      only snapshot/release versions
+   * @param timeout       time after which the operation is stopped and fails, 0 for no timeout
+   * @param unit          unit of the timeout
+   * @return future list of versions, cancelling it stops the operation
+   */
+  public CompletableFuture<List<Version>> allVersionsAsync(final String groupId,
+                                                           final String artifactId,
+                                                           final String versionPrefix,
+                                                           final boolean snapshot,
+                                                           long timeout,
+                                                           TimeUnit unit) {
+    checkOpen();
+    return asyncExecutor.get().submit(session(), unit.toMillis(timeout),
+        session -> versions(session, groupId, artifactId, versionPrefix, snapshot));
+  }
+
+  public CompletableFuture<List<Version>> allVersionsAsync(String groupId,
+                                                           String artifactId,
+                                                           String versionPrefix,
+                                                           boolean snapshot) {
+    return allVersionsAsync(groupId, artifactId, versionPrefix, snapshot, asyncTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  public CompletableFuture<List<Version>> allVersionsAsync(String groupId, String artifactId) {
+    return allVersionsAsync(groupId, artifactId, null, false);
+  }
+
+  /**
+   * Asynchronous {@link #resolveArtifact(Artifact, List)}. Unlike the blocking method, the returned future completes
+   * exceptionally if the artifact cannot be resolved.
+   *
+   * @param artifact               the given artifact to be resolved
+   * @param additionalRepositories additional remote repositories used to resolve the artifact
+   * @param timeout                time after which the operation is stopped and fails, 0 for no timeout
+   * @param unit                   unit of the timeout
+   * @return future resolved artifact, cancelling it stops the operation
+   */
+  public CompletableFuture<Artifact> resolveArtifactAsync(final Artifact artifact,
+                                                          final List<RemoteRepository> additionalRepositories,
+                                                          long timeout,
+                                                          TimeUnit unit) {
+    Artifact local = findLocalArtifact(artifact);
+    if (local != null) {
+      return CompletableFuture.completedFuture(local);
+    }
+    checkOpen();
+    return asyncExecutor.get().submit(session(), unit.toMillis(timeout),
+        session -> resolveArtifact(session, artifact, additionalRepositories));
+  }
+
+  public CompletableFuture<Artifact> resolveArtifactAsync(Artifact artifact,
+                                                          List<RemoteRepository> additionalRepositories) {
+    return resolveArtifactAsync(artifact, additionalRepositories, asyncTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  public CompletableFuture<Artifact> resolveArtifactAsync(Artifact artifact) {
+    return resolveArtifactAsync(artifact, Collections.<RemoteRepository>emptyList());
+  }
+
+  /**
+   * Asynchronous {@link #allDependencies(Artifact, List, DependencyFilter, List)}. Unlike the blocking method, the
+   * returned future completes exceptionally if the dependencies cannot be resolved.
+   *
+   * @param artifact               the root artifact
+   * @param managedDependencies    managed dependencies used to resolve transitive dependencies
+   * @param dependencyFilter       filter out transitive dependencies meet the requirement
+   * @param additionalRepositories additional repositories used to resolve transitive dependencies
+   * @param timeout                time after which the operation is stopped and fails, 0 for no timeout
+   * @param unit                   unit of the timeout
+   * @return future transitive dependencies, cancelling it stops the operation
+   */
+  public CompletableFuture<Set<Artifact>> allDependenciesAsync(final Artifact artifact,
+                                                               final List<Dependency> managedDependencies,
+                                                               final DependencyFilter dependencyFilter,
+                                                               final List<RemoteRepository> additionalRepositories,
+                                                               long timeout,
+                                                               TimeUnit unit) {
+    checkOpen();
+    return asyncExecutor.get().submit(dependencySession(), unit.toMillis(timeout),
+        session -> resolveDependencies(session, artifact, managedDependencies, dependencyFilter,
+            repositories(additionalRepositories)));
+  }
+
+  public CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact,
+                                                               List<Dependency> managedDependencies,
+                                                               DependencyFilter dependencyFilter,
+                                                               List<RemoteRepository> additionalRepositories) {
+    return allDependenciesAsync(artifact, managedDependencies, dependencyFilter, additionalRepositories,
+        asyncTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  public CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact,
+                                                               List<Dependency> managedDependencies,
+                                                               DependencyFilter dependencyFilter) {
+    return allDependenciesAsync(artifact, managedDependencies, dependencyFilter,
+        Collections.<RemoteRepository>emptyList());
+  }
+
+  public CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact) {
+    return allDependenciesAsync(artifact, Collections.<Dependency>emptyList(), new MavenUtils.EmptyDependencyFilter());
+  }
+
+  /**
+   * Stop the worker threads of this client and drop its shared session. Running asynchronous and batch operations
+   * are interrupted, and starting one afterwards fails with an {@link IllegalStateException}.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    AsyncExecutor executor = asyncExecutor.getIfCreated();
+    if (executor != null) {
+      executor.shutdown();
+    }
+    ExecutorService batch = batchExecutor.getIfCreated();
+    if (batch != null) {
+      batch.shutdownNow();
+    }
+    DescriptorPrefetcher prefetcher = descriptorPrefetcher == null ? null : descriptorPrefetcher.getIfCreated();
+    if (prefetcher != null) {
+      prefetcher.shutdown();
+    }
+    ObjectName metricsName = metricsRegistration == null ? null : metricsRegistration.getIfCreated();
+    if (metricsName != null && metricsName != ObjectName.WILDCARD) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+      } catch (JMException e) {
+        logger.warn("Failed to unregister {}", metricsName, e);
+      }
+    }
+    if (router != null) {
+      router.shutdown();
+    }
+    if (snapshotRefresher != null) {
+      snapshotRefresher.shutdown();
+    }
+    invalidateSession();
+  }
+
+}
@@ -14,117 +14,65 @@
  * limitations under the License.
  */
 
+
 package com.github.zxfun.maven.util;
 
 
-import com.typesafe.config.Config;
-import com.typesafe.config.ConfigFactory;
-import com.typesafe.config.ConfigValue;
-import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
-import org.eclipse.aether.DefaultRepositorySystemSession;
-import org.eclipse.aether.RepositorySystem;
+import org.apache.maven.model.Model;
+import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.artifact.*;
-import org.eclipse.aether.collection.CollectRequest;
-import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.graph.Exclusion;
-import org.eclipse.aether.impl.DefaultServiceLocator;
-import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.repository.RepositoryPolicy;
-import org.eclipse.aether.resolution.*;
-import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
-import org.eclipse.aether.spi.connector.transport.TransporterFactory;
-import org.eclipse.aether.transport.file.FileTransporterFactory;
-import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.version.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.lang.reflect.Method;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 
+/**
+ * Static access to a default {@link MavenClient} configured by the {@code maven.util} section of the application
+ * configuration. The default client is only created by the first method which needs it: converting, resolving and
+ * merging maven model objects never loads the configuration.
+ */
 public class MavenUtils {
 
   private static final Logger logger = LoggerFactory.getLogger(MavenUtils.class);
 
-  private static final Config config;
-  private static final RepositorySystem repositorySystem;
-  private static final List<RemoteRepository> remoteRepositories;
-  private static final List<RemoteRepository> remoteReleaseRepositories;
-  private static final List<RemoteRepository> remoteSnapshotRepositories;
-  private static final File localRepositoryDir;
-
-  static {
-    config = ConfigFactory.load(MavenUtils.class.getClassLoader()).getConfig("maven.util");
-    repositorySystem = initRepositorySystem();
-    remoteRepositories = initRemoteRepositories();
-    localRepositoryDir = new File(config.getString("local-repository"));
-    List<RemoteRepository> releaseRepos = new LinkedList<RemoteRepository>();
-    List<RemoteRepository> snapshotRepos = new LinkedList<RemoteRepository>();
-    for (RemoteRepository repository : remoteRepositories) {
-      if (repository.getPolicy(false).isEnabled()) {
-        releaseRepos.add(repository);
-      }
-      if (repository.getPolicy(true).isEnabled()) {
-        snapshotRepos.add(repository);
-      }
-    }
-    remoteReleaseRepositories = Collections.unmodifiableList(releaseRepos);
-    remoteSnapshotRepositories = Collections.unmodifiableList(snapshotRepos);
-  }
-
-  private static RepositorySystem initRepositorySystem() {
-    DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
-    locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
-    locator.addService(TransporterFactory.class, FileTransporterFactory.class);
-    locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
-    locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
-      @Override
-      public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
-        logger.error("Failed to create service for type {}, impl {}", type, impl, exception);
-      }
-    });
-    return locator.getService(RepositorySystem.class);
-  }
-
-  private static List<RemoteRepository> initRemoteRepositories() {
-    List<RemoteRepository> repositoryList = new LinkedList<RemoteRepository>();
-    Config repositories = config.getConfig("remote-repositories");
-    for (Map.Entry<String, ConfigValue> entry : repositories.entrySet()) {
-      String key = entry.getKey();
-      String url = repositories.getString(key);
-      RepositoryPolicy releasePolicy;
-      RepositoryPolicy snapshotPolicy;
-      if (url.endsWith("snapshots")) {
-        releasePolicy = new RepositoryPolicy(false, "never", "");
-        snapshotPolicy = new RepositoryPolicy(true, "always", "");
-      } else {
-        releasePolicy = new RepositoryPolicy(true, "never", "");
-        snapshotPolicy = new RepositoryPolicy(false, "always", "");
-      }
-      repositoryList.add(
-          new RemoteRepository.Builder(key, "default", url)
-              .setReleasePolicy(releasePolicy)
-              .setSnapshotPolicy(snapshotPolicy)
-              .build()
-      );
-    }
-    return Collections.unmodifiableList(repositoryList);
+  private static final class DefaultClient {
+    static final MavenClient INSTANCE = new MavenClient();
+  }
+
+  /**
+   * @return the client all static methods delegate to
+   */
+  public static MavenClient client() {
+    return DefaultClient.INSTANCE;
   }
 
   public static RepositorySystemSession newSession() {
-    DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
-    LocalRepository localRepository = new LocalRepository(localRepositoryDir);
-    session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(session, localRepository));
-    return session;
+    return client().newSession();
+  }
+
+  /**
+   * @see MavenClient#session()
+   */
+  public static RepositorySystemSession session() {
+    return client().session();
+  }
+
+  /**
+   * @see MavenClient#invalidateSession()
+   */
+  public static void invalidateSession() {
+    client().invalidateSession();
   }
 
   /**
@@ -137,30 +85,89 @@ public class MavenUtils {
    * @return list of versions
    */
   public static List<Version> allVersions(String groupId, String artifactId, String versionPrefix, boolean snapshot) {
-    String versionRange = (versionPrefix == null || versionPrefix.length() == 0) ? "[0,)" : "[" + versionPrefix + ".*]";
-    Artifact artifact = new DefaultArtifact(groupId + ":" + artifactId + ":" + versionRange);
-    VersionRangeRequest versionRangeRequest = new VersionRangeRequest(
-        artifact, snapshot ? remoteSnapshotRepositories : remoteReleaseRepositories, ""
-    );
-    try {
-      VersionRangeResult versionRangeResult = repositorySystem.resolveVersionRange(newSession(), versionRangeRequest);
-      return Collections.unmodifiableList(versionRangeResult.getVersions());
-    } catch (VersionRangeResolutionException e) {
-      logger.error("Failed to get all versions for {}, {}, {}", artifact, versionRange, snapshot, e);
-      return Collections.emptyList();
-    }
+    return client().allVersions(groupId, artifactId, versionPrefix, snapshot);
   }
 
   public static List<Version> allVersions(String groupId, String artifactId, String versionPrefix) {
-    return allVersions(groupId, artifactId, versionPrefix, false);
+    return client().allVersions(groupId, artifactId, versionPrefix);
   }
 
   public static List<Version> allVersions(String groupId, String artifactId, boolean snapshot) {
-    return allVersions(groupId, artifactId, null, snapshot);
+    return client().allVersions(groupId, artifactId, snapshot);
   }
 
   public static List<Version> allVersions(String groupId, String artifactId) {
-    return allVersions(groupId, artifactId, false);
+    return client().allVersions(groupId, artifactId);
+  }
+
+  /**
+   * @see MavenClient#versionCacheStats()
+   */
+  public static VersionCacheStats versionCacheStats() {
+    return client().versionCacheStats();
+  }
+
+  /**
+   * @see MavenClient#invalidateVersionCache()
+   */
+  public static void invalidateVersionCache() {
+    client().invalidateVersionCache();
+  }
+
+  /**
+   * @see MavenClient#invalidateVersionCache(String, String)
+   */
+  public static void invalidateVersionCache(String groupId, String artifactId) {
+    client().invalidateVersionCache(groupId, artifactId);
+  }
+
+  /**
+   * @see MavenClient#repositoryHealth()
+   */
+  public static List<RepositoryHealth> repositoryHealth() {
+    return client().repositoryHealth();
+  }
+
+  /**
+   * @see MavenClient#downloads()
+   */
+  public static List<DownloadProgress> downloads() {
+    return client().downloads();
+  }
+
+  /**
+   * @see MavenClient#refreshSnapshotMetadata()
+   */
+  public static void refreshSnapshotMetadata() {
+    client().refreshSnapshotMetadata();
+  }
+
+  /**
+   * @see MavenClient#resolutionStats()
+   */
+  public static ResolutionStats resolutionStats() {
+    return client().resolutionStats();
+  }
+
+  /**
+   * @see MavenClient#resetResolutionStats()
+   */
+  public static void resetResolutionStats() {
+    client().resetResolutionStats();
+  }
+
+  /**
+   * @see MavenClient#verifyResolutionCache()
+   */
+  public static int verifyResolutionCache() {
+    return client().verifyResolutionCache();
+  }
+
+  /**
+   * @see MavenClient#invalidateResolutionCache()
+   */
+  public static void invalidateResolutionCache() {
+    client().invalidateResolutionCache();
   }
 
   /**
@@ -171,25 +178,11 @@ public class MavenUtils {
    * @return resolved artifact
    */
   public static Artifact resolveArtifact(Artifact artifact, List<RemoteRepository> additionalRepositories) {
-    List<RemoteRepository> repositories = new LinkedList<RemoteRepository>();
-    repositories.add(
-        new RemoteRepository.Builder("local", "default", "file://" + localRepositoryDir.getAbsolutePath()).build()
-    );
-    repositories.addAll(remoteRepositories);
-    repositories.addAll(additionalRepositories);
-    ArtifactRequest artifactRequest = new ArtifactRequest(artifact, repositories, "");
-    Artifact resolved = null;
-    try {
-      ArtifactResult artifactResult = repositorySystem.resolveArtifact(newSession(), artifactRequest);
-      resolved = artifactResult.getArtifact();
-    } catch (ArtifactResolutionException e) {
-      logger.error("Failed to resolve artifact {}", artifact, e);
-    }
-    return resolved;
+    return client().resolveArtifact(artifact, additionalRepositories);
   }
 
   public static Artifact resolveArtifact(Artifact artifact) {
-    return resolveArtifact(artifact, Collections.<RemoteRepository>emptyList());
+    return client().resolveArtifact(artifact);
   }
 
   /**
@@ -205,75 +198,185 @@ public class MavenUtils {
                                               List<Dependency> managedDependencies,
                                               DependencyFilter dependencyFilter,
                                               List<RemoteRepository> additionalRepositories) {
-    List<RemoteRepository> repositories = new LinkedList<RemoteRepository>();
-    repositories.add(
-        new RemoteRepository.Builder("local", "default", "file://" + localRepositoryDir.getAbsolutePath()).build()
-    );
-    repositories.addAll(remoteRepositories);
-    repositories.addAll(additionalRepositories);
-
-    CollectRequest collectRequest = new CollectRequest(new Dependency(artifact, ""), repositories);
-    collectRequest.setManagedDependencies(managedDependencies);
-    DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, dependencyFilter);
-    Set<Artifact> results = new HashSet<Artifact>();
-    try {
-      DependencyResult dependencyResult = repositorySystem.resolveDependencies(newSession(), dependencyRequest);
-      for (ArtifactResult result : dependencyResult.getArtifactResults()) {
-        results.add(result.getArtifact());
-      }
-    } catch (DependencyResolutionException e) {
-      logger.error("Failed to resolve transitive dependencies for {}", artifact, e);
-    }
-    return Collections.unmodifiableSet(results);
+    return client().allDependencies(artifact, managedDependencies, dependencyFilter, additionalRepositories);
   }
 
   public static Set<Artifact> allDependencies(Artifact artifact,
                                                List<Dependency> managedDependencies,
                                                DependencyFilter dependencyFilter) {
-    return allDependencies(artifact, managedDependencies, dependencyFilter, Collections.<RemoteRepository>emptyList());
+    return client().allDependencies(artifact, managedDependencies, dependencyFilter);
   }
 
   public static Set<Artifact> allDependencies(Artifact artifact, List<Dependency> managedDependencies) {
-    return allDependencies(artifact, managedDependencies, new EmptyDependencyFilter());
+    return client().allDependencies(artifact, managedDependencies);
   }
 
   public static Set<Artifact> allDependencies(Artifact artifact, DependencyFilter dependencyFilter) {
-    return allDependencies(artifact, Collections.<Dependency>emptyList(), dependencyFilter);
+    return client().allDependencies(artifact, dependencyFilter);
   }
 
   public static Set<Artifact> allDependencies(Artifact artifact) {
-    return allDependencies(artifact, Collections.<Dependency>emptyList());
+    return client().allDependencies(artifact);
   }
 
   /**
-   * Resolve the maven model object using the given properties
+   * @see MavenClient#allDependencies(Collection, List)
+   */
+  public static BatchResult allDependencies(Collection<DependencyRoot> roots,
+                                            List<RemoteRepository> additionalRepositories) {
+    return client().allDependencies(roots, additionalRepositories);
+  }
+
+  public static BatchResult allDependencies(Collection<DependencyRoot> roots) {
+    return client().allDependencies(roots);
+  }
+
+  /**
+   * @see MavenClient#resolveIncrementally(DependencyRoot, List)
+   */
+  public static IncrementalResult resolveIncrementally(DependencyRoot root,
+                                                       List<RemoteRepository> additionalRepositories)
+      throws DependencyResolutionException {
+    return client().resolveIncrementally(root, additionalRepositories);
+  }
+
+  public static IncrementalResult resolveIncrementally(DependencyRoot root) throws DependencyResolutionException {
+    return client().resolveIncrementally(root);
+  }
+
+  /**
+   * @see MavenClient#resolveIncrementally(IncrementalResult, List)
+   */
+  public static IncrementalResult resolveIncrementally(IncrementalResult previous,
+                                                       List<Dependency> managedDependencies)
+      throws DependencyResolutionException {
+    return client().resolveIncrementally(previous, managedDependencies);
+  }
+
+  /**
+   * @see MavenClient#traverse(DependencyRoot, TraversalOptions, DependencyGraphVisitor)
+   */
+  public static boolean traverse(DependencyRoot root, TraversalOptions options, DependencyGraphVisitor visitor)
+      throws RepositoryException {
+    return client().traverse(root, options, visitor);
+  }
+
+  public static boolean traverse(DependencyRoot root, DependencyGraphVisitor visitor) throws RepositoryException {
+    return client().traverse(root, visitor);
+  }
+
+  /**
+   * @see MavenClient#allVersionsAsync(String, String, String, boolean, long, TimeUnit)
+   */
+  public static CompletableFuture<List<Version>> allVersionsAsync(String groupId,
+                                                                  String artifactId,
+                                                                  String versionPrefix,
+                                                                  boolean snapshot,
+                                                                  long timeout,
+                                                                  TimeUnit unit) {
+    return client().allVersionsAsync(groupId, artifactId, versionPrefix, snapshot, timeout, unit);
+  }
+
+  public static CompletableFuture<List<Version>> allVersionsAsync(String groupId,
+                                                                  String artifactId,
+                                                                  String versionPrefix,
+                                                                  boolean snapshot) {
+    return client().allVersionsAsync(groupId, artifactId, versionPrefix, snapshot);
+  }
+
+  public static CompletableFuture<List<Version>> allVersionsAsync(String groupId, String artifactId) {
+    return client().allVersionsAsync(groupId, artifactId);
+  }
+
+  /**
+   * @see MavenClient#resolveArtifactAsync(Artifact, List, long, TimeUnit)
+   */
+  public static CompletableFuture<Artifact> resolveArtifactAsync(Artifact artifact,
+                                                                 List<RemoteRepository> additionalRepositories,
+                                                                 long timeout,
+                                                                 TimeUnit unit) {
+    return client().resolveArtifactAsync(artifact, additionalRepositories, timeout, unit);
+  }
+
+  public static CompletableFuture<Artifact> resolveArtifactAsync(Artifact artifact,
+                                                                 List<RemoteRepository> additionalRepositories) {
+    return client().resolveArtifactAsync(artifact, additionalRepositories);
+  }
+
+  public static CompletableFuture<Artifact> resolveArtifactAsync(Artifact artifact) {
+    return client().resolveArtifactAsync(artifact);
+  }
+
+  /**
+   * @see MavenClient#allDependenciesAsync(Artifact, List, DependencyFilter, List, long, TimeUnit)
+   */
+  public static CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact,
+                                                                      List<Dependency> managedDependencies,
+                                                                      DependencyFilter dependencyFilter,
+                                                                      List<RemoteRepository> additionalRepositories,
+                                                                      long timeout,
+                                                                      TimeUnit unit) {
+    return client().allDependenciesAsync(artifact, managedDependencies, dependencyFilter, additionalRepositories,
+        timeout, unit);
+  }
+
+  public static CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact,
+                                                                      List<Dependency> managedDependencies,
+                                                                      DependencyFilter dependencyFilter,
+                                                                      List<RemoteRepository> additionalRepositories) {
+    return client().allDependenciesAsync(artifact, managedDependencies, dependencyFilter, additionalRepositories);
+  }
+
+  public static CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact,
+                                                                      List<Dependency> managedDependencies,
+                                                                      DependencyFilter dependencyFilter) {
+    return client().allDependenciesAsync(artifact, managedDependencies, dependencyFilter);
+  }
+
+  public static CompletableFuture<Set<Artifact>> allDependenciesAsync(Artifact artifact) {
+    return client().allDependenciesAsync(artifact);
+  }
+
+  /**
+   * Resolve the maven model object using the given properties. Placeholders are replaced anywhere in the values and
+   * properties referring to other properties are resolved recursively.
    *
    * @param obj the maven model object
    * @param properties maven properties
    * @param <T> object type
    * @return resolved object
    */
-  @SuppressWarnings("unchecked")
   public static <T> T resolve(T obj, Properties properties) {
-    Pattern pattern = Pattern.compile("^\\$\\{(.+)\\}$");
-    Class<?> clazz = obj.getClass();
+    return resolve(obj, new Interpolator(properties));
+  }
+
+  /**
+   * Resolve a list of maven model objects using the given properties
+   *
+   * @param objs the maven model objects
+   * @param properties maven properties
+   * @param <T> object type
+   * @return resolved objects, in the same order
+   */
+  public static <T> List<T> resolveAll(List<T> objs, Properties properties) {
+    Interpolator interpolator = new Interpolator(properties);
+    List<T> results = new ArrayList<T>(objs.size());
+    for (T obj : objs) {
+      results.add(resolve(obj, interpolator));
+    }
+    return results;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T resolve(T obj, Interpolator interpolator) {
     try {
-      T result = (T) clazz.getMethod("clone").invoke(obj);
-      for (Method method : clazz.getDeclaredMethods()) {
-        if (method.getName().startsWith("get") && method.getParameterTypes().length == 0 && method.getReturnType() == String.class) {
-          String value = (String) method.invoke(obj);
-          if (value == null) continue;
-          Matcher m = pattern.matcher(value);
-          if (m.find()) {
-            String placeholder = m.group(1);
-            String resolvedValue = properties.getProperty(placeholder);
-            if (resolvedValue != null) {
-              try {
-                Method setter = clazz.getDeclaredMethod(method.getName().replaceFirst("get", "set"), method.getReturnType());
-                setter.invoke(result, resolvedValue);
-              } catch (Exception ignored) {}
-            }
-          }
+      AccessorPlan plan = AccessorPlan.of(obj.getClass());
+      T result = (T) plan.copy(obj);
+      for (AccessorPlan.Property property : plan.stringProperties()) {
+        String value = (String) property.get(obj);
+        String resolvedValue = interpolator.interpolate(value);
+        if (resolvedValue != value) {
+          set(property, result, resolvedValue);
         }
       }
       return result;
@@ -283,9 +386,31 @@ public class MavenUtils {
     }
   }
 
+  /**
+   * Interpolate the properties, dependencies and managed dependencies of a maven model in one pass. The properties
+   * of the model and its {@code project.*} coordinates are available to the placeholders.
+   *
+   * @param model the maven model
+   * @param properties additional properties, taking precedence over the ones of the model
+   * @return interpolated copy of the model
+   */
+  public static Model interpolate(Model model, Properties properties) {
+    try {
+      return Interpolator.interpolate(model, properties);
+    } catch (Exception e) {
+      logger.error("Failed to interpolate {}", model, e);
+      return model;
+    }
+  }
+
+  public static Model interpolate(Model model) {
+    return interpolate(model, null);
+  }
+
   /**
    * Merge 2 maven model object with same type (Dependency merge with Managed Dependency).
-   * If some value is null in base object, set it using the same value in target
+   * If some value is null in base object, set it using the same value in target. A property whose setter fails keeps
+   * the value of the base object.
    *
    * @param base base object
    * @param target target object
@@ -294,27 +419,34 @@ public class MavenUtils {
    */
   @SuppressWarnings("unchecked")
   public static <T> T merge(T base, T target) {
-    Class<?> clazz = base.getClass();
     try {
-      T result = (T) clazz.getMethod("clone").invoke(base);
-      for (Method method : clazz.getDeclaredMethods()) {
-        if (method.getName().startsWith("get") && method.getParameterTypes().length == 0) {
-          Object value = method.invoke(target);
-          if (value != null) {
-            try {
-              Method setter = clazz.getDeclaredMethod(method.getName().replaceFirst("get", "set"), method.getReturnType());
-              setter.invoke(result, value);
-            } catch (Exception ignored) {}
-          }
+      AccessorPlan plan = AccessorPlan.of(base.getClass());
+      T result = (T) plan.copy(base);
+      for (AccessorPlan.Property property : plan.properties()) {
+        Object value = property.get(target);
+        if (value != null) {
+          set(property, result, value);
         }
       }
       return result;
     } catch (Exception e) {
-      e.printStackTrace();
+      logger.error("Failed to merge {} with {}", base, target, e);
       return base;
     }
   }
 
+  /**
+   * Set a property of a copy, keeping its previous value if the setter fails so the other properties are still
+   * resolved or merged
+   */
+  private static void set(AccessorPlan.Property property, Object obj, Object value) {
+    try {
+      property.set(obj, value);
+    } catch (ReflectiveOperationException e) {
+      logger.debug("Failed to set {} of {}", property.name(), obj, e);
+    }
+  }
+
   /**
    * Convert {@link org.apache.maven.model.Dependency} to {@link Dependency}
    *
@@ -322,23 +454,84 @@ public class MavenUtils {
    * @return {@link Dependency}
    */
   public static Dependency mavenDependency2AetherDependency(org.apache.maven.model.Dependency dependency) {
-    ArtifactTypeRegistry registry = newSession().getArtifactTypeRegistry();
-    ArtifactType artifactType = registry.get(dependency.getType());
-    if (artifactType == null) {
-      artifactType = new DefaultArtifactType(dependency.getType());
+    return new DependencyConverter().convert(dependency);
+  }
+
+  /**
+   * Convert the dependencies of a maven model to Aether dependencies. The model is interpolated first, then every
+   * direct dependency is completed by its entry in the dependency management. Imported managed dependencies are
+   * skipped. Repeated coordinates and exclusions share the same instances.
+   *
+   * @param model      the maven model
+   * @param properties additional properties, taking precedence over the ones of the model
+   * @return direct and managed dependencies, ready to be used with {@link #allDependencies}
+   */
+  public static ModelDependencies mavenModel2AetherDependencies(Model model, Properties properties) {
+    Model interpolated = interpolate(model, properties);
+    List<org.apache.maven.model.Dependency> managedDependencies = interpolated.getDependencyManagement() == null
+        ? Collections.<org.apache.maven.model.Dependency>emptyList()
+        : interpolated.getDependencyManagement().getDependencies();
+    return convertDependencies(interpolated.getDependencies(), managedDependencies);
+  }
+
+  public static ModelDependencies mavenModel2AetherDependencies(Model model) {
+    return mavenModel2AetherDependencies(model, null);
+  }
+
+  /**
+   * Convert maven model dependencies to Aether dependencies, after resolving them with the given properties and
+   * completing every direct dependency by its managed dependency.
+   *
+   * @param dependencies        direct dependencies
+   * @param managedDependencies managed dependencies
+   * @param properties          maven properties
+   * @return direct and managed dependencies, ready to be used with {@link #allDependencies}
+   */
+  public static ModelDependencies mavenDependencies2AetherDependencies(
+      List<org.apache.maven.model.Dependency> dependencies,
+      List<org.apache.maven.model.Dependency> managedDependencies,
+      Properties properties) {
+    Interpolator interpolator = new Interpolator(properties);
+    List<org.apache.maven.model.Dependency> resolvedDependencies =
+        new ArrayList<org.apache.maven.model.Dependency>(dependencies.size());
+    for (org.apache.maven.model.Dependency dependency : dependencies) {
+      resolvedDependencies.add(resolve(dependency, interpolator));
     }
-    Map<String, String> props = new HashMap<String, String>();
-    String systemPath = dependency.getSystemPath();
-    if (systemPath != null) {
-      props.put(ArtifactProperties.LOCAL_PATH, systemPath);
+    List<org.apache.maven.model.Dependency> resolvedManagedDependencies =
+        new ArrayList<org.apache.maven.model.Dependency>(managedDependencies.size());
+    for (org.apache.maven.model.Dependency dependency : managedDependencies) {
+      resolvedManagedDependencies.add(resolve(dependency, interpolator));
+    }
+    return convertDependencies(resolvedDependencies, resolvedManagedDependencies);
+  }
+
+  private static ModelDependencies convertDependencies(List<org.apache.maven.model.Dependency> dependencies,
+                                                       List<org.apache.maven.model.Dependency> managedDependencies) {
+    DependencyConverter converter = new DependencyConverter();
+    Map<String, org.apache.maven.model.Dependency> management =
+        new HashMap<String, org.apache.maven.model.Dependency>();
+    List<Dependency> managed = new ArrayList<Dependency>(managedDependencies.size());
+    for (org.apache.maven.model.Dependency dependency : managedDependencies) {
+      if ("import".equals(dependency.getScope())) continue;
+      if (!management.containsKey(dependency.getManagementKey())) {
+        management.put(dependency.getManagementKey(), dependency);
+      }
+      managed.add(converter.convert(dependency));
     }
-    Artifact artifact = new DefaultArtifact(dependency.getGroupId(), dependency.getArtifactId(),
-        dependency.getClassifier(), dependency.getType(), dependency.getVersion(), props, artifactType);
-    List<Exclusion> exclusions = new LinkedList<Exclusion>();
-    for (org.apache.maven.model.Exclusion exclusion : dependency.getExclusions()) {
-      exclusions.add(mavenExclusion2AetherExclusion(exclusion));
+    List<Dependency> direct = new ArrayList<Dependency>(dependencies.size());
+    for (org.apache.maven.model.Dependency dependency : dependencies) {
+      org.apache.maven.model.Dependency managedDependency = management.get(dependency.getManagementKey());
+      if (managedDependency != null) {
+        // values of the dependency take precedence, the managed dependency only fills in the missing ones
+        org.apache.maven.model.Dependency merged = merge(managedDependency, dependency);
+        if (dependency.getExclusions().isEmpty()) {
+          merged.setExclusions(managedDependency.getExclusions());
+        }
+        dependency = merged;
+      }
+      direct.add(converter.convert(dependency));
     }
-    return new Dependency(artifact, dependency.getScope(), dependency.isOptional(), exclusions);
+    return new ModelDependencies(direct, managed);
   }
 
   /**
@@ -356,6 +549,16 @@ public class MavenUtils {
     public boolean accept(DependencyNode node, List<DependencyNode> parents) {
       return true;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof EmptyDependencyFilter;
+    }
+
+    @Override
+    public int hashCode() {
+      return EmptyDependencyFilter.class.hashCode();
+    }
   }
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.graph.Dependency;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The direct and managed dependencies of a maven model converted to Aether dependencies, ready to be passed to
+ * {@link MavenUtils#allDependencies}.
+ */
+public final class ModelDependencies {
+
+  private final List<Dependency> dependencies;
+  private final List<Dependency> managedDependencies;
+
+  ModelDependencies(List<Dependency> dependencies, List<Dependency> managedDependencies) {
+    this.dependencies = Collections.unmodifiableList(dependencies);
+    this.managedDependencies = Collections.unmodifiableList(managedDependencies);
+  }
+
+  /**
+   * @return the direct dependencies, completed by the dependency management
+   */
+  public List<Dependency> getDependencies() {
+    return dependencies;
+  }
+
+  /**
+   * @return the managed dependencies, without the imported ones
+   */
+  public List<Dependency> getManagedDependencies() {
+    return managedDependencies;
+  }
+
+}
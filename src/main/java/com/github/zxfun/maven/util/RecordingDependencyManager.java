@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencyManagement;
+import org.eclipse.aether.collection.DependencyManager;
+import org.eclipse.aether.graph.Dependency;
+
+import java.util.Set;
+
+
+/**
+ * Records the key of every dependency submitted to the dependency management of a collection, before the dependency
+ * selector sees it. A change of the managed dependencies can only alter the result of the collection if it touches one
+ * of these keys.
+ */
+final class RecordingDependencyManager implements DependencyManager {
+
+  private final DependencyManager delegate;
+  private final Set<String> keys;
+
+  /**
+   * @param delegate the dependency manager of the session, may be {@code null}
+   * @param keys     receives the keys, see {@link #key}
+   */
+  RecordingDependencyManager(DependencyManager delegate, Set<String> keys) {
+    this.delegate = delegate;
+    this.keys = keys;
+  }
+
+  /**
+   * @return the key the dependency management of Aether matches dependencies by:
+   * {@code groupId:artifactId:extension:classifier}
+   */
+  static String key(Artifact artifact) {
+    return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getExtension() + ':'
+        + artifact.getClassifier();
+  }
+
+  @Override
+  public DependencyManagement manageDependency(Dependency dependency) {
+    keys.add(key(dependency.getArtifact()));
+    return delegate == null ? null : delegate.manageDependency(dependency);
+  }
+
+  @Override
+  public DependencyManager deriveChildManager(DependencyCollectionContext context) {
+    if (delegate == null) {
+      return this;
+    }
+    DependencyManager child = delegate.deriveChildManager(context);
+    return child == delegate ? this : new RecordingDependencyManager(child, keys);
+  }
+
+  /**
+   * Managers recording into different sets are never equal, so that the collector does not reuse a subgraph collected
+   * for another resolution without submitting its dependencies to this one
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof RecordingDependencyManager)) {
+      return false;
+    }
+    RecordingDependencyManager that = (RecordingDependencyManager) obj;
+    return keys == that.keys && (delegate == null ? that.delegate == null : delegate.equals(that.delegate));
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(keys) * 31 + (delegate == null ? 0 : delegate.hashCode());
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+
+/**
+ * Health of a remote repository as seen by the repository routing of a client: moving averages of the latency and of
+ * the error rate of its transfers, and whether its circuit breaker is tripped.
+ */
+public final class RepositoryHealth {
+
+  private final String url;
+  private final double latencyMillis;
+  private final double errorRate;
+  private final int consecutiveFailures;
+  private final boolean tripped;
+  private final long hedgedRequests;
+
+  RepositoryHealth(String url,
+                   double latencyMillis,
+                   double errorRate,
+                   int consecutiveFailures,
+                   boolean tripped,
+                   long hedgedRequests) {
+    this.url = url;
+    this.latencyMillis = latencyMillis;
+    this.errorRate = errorRate;
+    this.consecutiveFailures = consecutiveFailures;
+    this.tripped = tripped;
+    this.hedgedRequests = hedgedRequests;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return moving average of the time until the repository answers a transfer, 0 if it was never used
+   */
+  public double getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  /**
+   * @return moving average of the share of transfers failing with an error other than not found
+   */
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  /**
+   * @return {@code true} if transfers from the repository currently fail immediately, until a trial transfer succeeds
+   */
+  public boolean isTripped() {
+    return tripped;
+  }
+
+  /**
+   * @return number of version metadata requests duplicated because the first response was slow
+   */
+  public long getHedgedRequests() {
+    return hedgedRequests;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s latency=%.1fms errors=%.2f%s", url, latencyMillis, errorRate, tripped ? " tripped" : "");
+  }
+
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import com.typesafe.config.Config;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Routes the requests of a client across its remote repositories according to their health. The transfers of the
+ * sessions are observed to keep, per repository, moving averages of the time until the repository answers and of its
+ * error rate. Repositories are then searched from the healthiest to the least healthy. After a number of consecutive
+ * failures, the circuit breaker of a repository trips: its transfers fail immediately, so that it is skipped without
+ * waiting for timeouts, until a trial transfer let through after a while succeeds. Version metadata requests to HTTP
+ * repositories can be hedged: when the first response is slow, the same request is sent again and the first answer
+ * wins.
+ */
+class RepositoryRouter {
+
+  private static final Logger logger = LoggerFactory.getLogger(RepositoryRouter.class);
+
+  /**
+   * Session config property holding the router, read by {@link ThrottlingTransporterFactory}
+   */
+  static final String ROUTER = "maven.util.router";
+
+  private static final String METADATA = "maven-metadata.xml";
+
+  private final double smoothing;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final long hedgeDelayNanos;
+  private final ConcurrentMap<String, Health> healthByUrl = new ConcurrentHashMap<>();
+  private final ConcurrentMap<TransferResource, Long> transferStarts = new ConcurrentHashMap<>();
+  private final TransferListener transferListener = new Transfers();
+  private final Lazy<ExecutorService> hedgeExecutor = new Lazy<>(
+      () -> Executors.newCachedThreadPool(new DaemonThreadFactory("maven-utils-hedge")));
+
+  /**
+   * @param config the {@code maven.util.remote-repositories.routing} section
+   */
+  RepositoryRouter(Config config) {
+    this(config.getDouble("smoothing"), config.getInt("failure-threshold"),
+        config.getDuration("open-duration", TimeUnit.NANOSECONDS),
+        config.getDuration("hedge-delay", TimeUnit.NANOSECONDS));
+  }
+
+  RepositoryRouter(double smoothing, int failureThreshold, long openNanos, long hedgeDelayNanos) {
+    if (smoothing <= 0 || smoothing > 1) {
+      throw new IllegalArgumentException("smoothing must be in (0, 1]: " + smoothing);
+    }
+    this.smoothing = smoothing;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openNanos;
+    this.hedgeDelayNanos = hedgeDelayNanos;
+  }
+
+  /**
+   * @return the listener observing the transfers of the sessions and failing the transfers of tripped repositories
+   */
+  TransferListener transferListener() {
+    return transferListener;
+  }
+
+  /**
+   * Order repositories from the healthiest to the least healthy. Repositories never used come first, so that they get
+   * measured, and tripped repositories come last. Repositories in the same state keep their relative order.
+   *
+   * @param repositories repositories in configuration order
+   * @return the repositories in the order they should be searched
+   */
+  List<RemoteRepository> order(List<RemoteRepository> repositories) {
+    if (repositories.size() < 2) {
+      return repositories;
+    }
+    // scores are computed once, as they change while sorting
+    final Map<RemoteRepository, Double> scores = new IdentityHashMap<>();
+    for (RemoteRepository repository : repositories) {
+      Health health = existing(repository.getUrl());
+      scores.put(repository, health == null ? 0 : health.score(System.nanoTime()));
+    }
+    List<RemoteRepository> ordered = new ArrayList<>(repositories);
+    Collections.sort(ordered, (first, second) -> Double.compare(scores.get(first), scores.get(second)));
+    return ordered;
+  }
+
+  /**
+   * @return the health of the repositories, in the order they are searched
+   */
+  List<RepositoryHealth> health(List<RemoteRepository> repositories) {
+    List<RepositoryHealth> result = new ArrayList<>(repositories.size());
+    for (RemoteRepository repository : order(repositories)) {
+      Health health = existing(repository.getUrl());
+      result.add(health == null
+          ? new RepositoryHealth(repository.getUrl(), 0, 0, 0, false, 0)
+          : health.snapshot(repository.getUrl()));
+    }
+    return result;
+  }
+
+  /**
+   * @return the transporter hedging the version metadata requests of a repository, or the transporter itself if
+   * hedging is disabled
+   */
+  Transporter hedging(Transporter transporter, RemoteRepository repository) {
+    return hedgeDelayNanos > 0 ? new HedgingTransporter(transporter, health(repository.getUrl())) : transporter;
+  }
+
+  void shutdown() {
+    ExecutorService executor = hedgeExecutor.getIfCreated();
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private Health existing(String url) {
+    return healthByUrl.get(key(url));
+  }
+
+  private Health health(String url) {
+    String key = key(url);
+    Health health = healthByUrl.get(key);
+    return health == null ? healthByUrl.computeIfAbsent(key, k -> new Health()) : health;
+  }
+
+  /**
+   * @return the url as in transfer events, which always end with a slash
+   */
+  private static String key(String url) {
+    return url.endsWith("/") ? url : url + '/';
+  }
+
+  /**
+   * Health of one repository. Updates are rare compared to the duration of transfers, so they are synchronized.
+   */
+  private final class Health {
+
+    private double latencyNanos = -1;
+    private double errorRate;
+    private int consecutiveFailures;
+    // System.nanoTime() until which transfers are refused, only meaningful while tripped
+    private long openUntil;
+    private boolean tripped;
+    private final LongAdder hedged = new LongAdder();
+
+    /**
+     * @return {@code true} if a transfer may proceed: the breaker is not tripped, or it is time for a trial transfer
+     */
+    synchronized boolean permit(long now) {
+      if (!tripped) {
+        return true;
+      }
+      if (now - openUntil < 0) {
+        return false;
+      }
+      // let this transfer through as the trial, the others keep failing until it completes
+      openUntil = now + openNanos;
+      return true;
+    }
+
+    synchronized void answered(long latency) {
+      latencyNanos = latencyNanos < 0 ? latency : latencyNanos + smoothing * (latency - latencyNanos);
+    }
+
+    synchronized void succeeded(String url) {
+      errorRate -= smoothing * errorRate;
+      consecutiveFailures = 0;
+      if (tripped) {
+        logger.info("{} answered again, closing its circuit breaker", url);
+        tripped = false;
+      }
+    }
+
+    synchronized void failed(String url, long now) {
+      errorRate += smoothing * (1 - errorRate);
+      consecutiveFailures++;
+      if (failureThreshold > 0 && consecutiveFailures >= failureThreshold && !tripped) {
+        logger.warn("{} failed {} times in a row, skipping it for {} ms", url, consecutiveFailures,
+            TimeUnit.NANOSECONDS.toMillis(openNanos));
+        tripped = true;
+        openUntil = now + openNanos;
+      }
+    }
+
+    /**
+     * @return expected time to get an answer, retrying elsewhere after errors, or infinity if tripped
+     */
+    synchronized double score(long now) {
+      if (tripped && now - openUntil < 0) {
+        return Double.POSITIVE_INFINITY;
+      }
+      return Math.max(latencyNanos, 0) / Math.max(1 - errorRate, 0.05);
+    }
+
+    synchronized RepositoryHealth snapshot(String url) {
+      return new RepositoryHealth(url, Math.max(latencyNanos, 0) / 1e6, errorRate, consecutiveFailures, tripped,
+          hedged.sum());
+    }
+
+  }
+
+  private final class Transfers extends AbstractTransferListener {
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+      long now = System.nanoTime();
+      if (!health(event.getResource().getRepositoryUrl()).permit(now)) {
+        throw new TransferCancelledException(
+            "Circuit breaker of " + event.getResource().getRepositoryUrl() + " is tripped");
+      }
+      transferStarts.put(event.getResource(), now);
+    }
+
+    @Override
+    public void transferStarted(TransferEvent event) {
+      answered(event);
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+      answered(event);
+      health(event.getResource().getRepositoryUrl()).succeeded(event.getResource().getRepositoryUrl());
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+      Exception exception = event.getException();
+      String url = event.getResource().getRepositoryUrl();
+      if (exception instanceof TransferCancelledException
+          || exception != null && exception.getCause() instanceof TransferCancelledException) {
+        // refused by the circuit breaker or cancelled by the caller, it tells nothing about the repository
+        transferStarts.remove(event.getResource());
+        return;
+      }
+      answered(event);
+      if (exception instanceof ArtifactNotFoundException || exception instanceof MetadataNotFoundException) {
+        health(url).succeeded(url);
+      } else {
+        health(url).failed(url, System.nanoTime());
+      }
+    }
+
+    /**
+     * Record the latency of the transfer on its first answer
+     */
+    private void answered(TransferEvent event) {
+      Long start = transferStarts.remove(event.getResource());
+      if (start != null) {
+        health(event.getResource().getRepositoryUrl()).answered(System.nanoTime() - start);
+      }
+    }
+
+  }
+
+  private final class HedgingTransporter implements Transporter {
+
+    private final Transporter delegate;
+    private final Health health;
+
+    HedgingTransporter(Transporter delegate, Health health) {
+      this.delegate = delegate;
+      this.health = health;
+    }
+
+    @Override
+    public int classify(Throwable error) {
+      return delegate.classify(error);
+    }
+
+    @Override
+    public void peek(PeekTask task) throws Exception {
+      delegate.peek(task);
+    }
+
+    @Override
+    public void get(GetTask task) throws Exception {
+      if (!task.getLocation().toString().endsWith(METADATA)) {
+        delegate.get(task);
+        return;
+      }
+      CompletionService<GetTask> completion = new ExecutorCompletionService<>(hedgeExecutor.get());
+      List<Future<GetTask>> attempts = new ArrayList<>(2);
+      try {
+        attempts.add(completion.submit(() -> attempt(task)));
+        Future<GetTask> done = completion.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        if (done == null) {
+          logger.debug("No answer for {} after {} ms, sending the request again", task.getLocation(),
+              TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+          health.hedged.increment();
+          attempts.add(completion.submit(() -> attempt(task)));
+        }
+        Exception failure = null;
+        for (int remaining = attempts.size(); remaining > 0; remaining--) {
+          if (done == null) {
+            done = completion.take();
+          }
+          try {
+            copy(done.get(), task);
+            return;
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+          }
+          done = null;
+        }
+        throw failure;
+      } finally {
+        for (Future<GetTask> attempt : attempts) {
+          attempt.cancel(true);
+        }
+      }
+    }
+
+    private GetTask attempt(GetTask task) throws Exception {
+      GetTask attempt = new GetTask(task.getLocation());
+      delegate.get(attempt);
+      return attempt;
+    }
+
+    /**
+     * Hand the content and checksums of the winning attempt to the original task, as if it had been downloaded by it
+     */
+    private void copy(GetTask attempt, GetTask task) throws Exception {
+      byte[] data = attempt.getDataBytes();
+      for (Map.Entry<String, String> checksum : attempt.getChecksums().entrySet()) {
+        task.setChecksum(checksum.getKey(), checksum.getValue());
+      }
+      task.getListener().transportStarted(0, data.length);
+      OutputStream out = task.newOutputStream();
+      try {
+        out.write(data);
+      } finally {
+        out.close();
+      }
+      task.getListener().transportProgressed(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public void put(PutTask task) throws Exception {
+      delegate.put(task);
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+
+  }
+
+}
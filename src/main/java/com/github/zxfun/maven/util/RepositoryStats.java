@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+
+/**
+ * Point in time statistics of the transfers from one remote repository.
+ */
+public final class RepositoryStats {
+
+  private final String url;
+  private final long requests;
+  private final long failures;
+  private final long notFound;
+  private final long bytes;
+  private final TimerStats latency;
+
+  RepositoryStats(String url, long requests, long failures, long notFound, long bytes, TimerStats latency) {
+    this.url = url;
+    this.requests = requests;
+    this.failures = failures;
+    this.notFound = notFound;
+    this.bytes = bytes;
+    this.latency = latency;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * @return number of transfers started, including the ones not finished yet
+   */
+  public long getRequests() {
+    return requests;
+  }
+
+  /**
+   * @return number of failed transfers, including the ones of resources missing from the repository
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  /**
+   * @return number of transfers which failed because the resource is missing from the repository
+   */
+  public long getNotFound() {
+    return notFound;
+  }
+
+  /**
+   * @return number of bytes transferred
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return duration of the finished transfers, successful or not
+   */
+  public TimerStats getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String toString() {
+    return "RepositoryStats{url=" + url + ", requests=" + requests + ", failures=" + failures
+        + ", notFound=" + notFound + ", bytes=" + bytes + ", latency=" + latency + "}";
+  }
+
+}
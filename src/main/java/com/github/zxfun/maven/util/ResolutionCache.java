@@ -0,0 +1,467 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+
+/**
+ * Persistent cache of resolved dependency graphs. Every entry is a file named after the SHA-1 of the inputs of the
+ * resolution: root coordinates, managed dependencies, repositories and dependency filter. It contains the resolved
+ * artifacts with their files and the dependency graph, followed by a CRC32 of the content.
+ *
+ * <p>Only resolutions which cannot change over time are stored: no snapshots and no version ranges anywhere in the
+ * graph, and a filter whose identity is known. When the total size of the entries exceeds the limit, the least
+ * recently used entries are removed.</p>
+ */
+class ResolutionCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResolutionCache.class);
+
+  private static final int MAGIC = 0x4d555243;
+  private static final int FORMAT = 1;
+  private static final String SUFFIX = ".bin";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final File directory;
+  private final long maxSize;
+  private final AtomicLong size = new AtomicLong();
+
+  ResolutionCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalStateException("Failed to create resolution cache directory " + directory);
+    }
+    long total = 0;
+    for (File file : entryFiles()) {
+      total += file.length();
+    }
+    size.set(total);
+  }
+
+  /**
+   * Compute the key of a resolution
+   *
+   * @return the key, or {@code null} if the resolution cannot be cached
+   */
+  String key(Artifact root,
+             List<Dependency> managedDependencies,
+             DependencyFilter dependencyFilter,
+             List<RemoteRepository> repositories) {
+    if (root.isSnapshot() || isRange(root.getVersion())) {
+      return null;
+    }
+    StringBuilder key = new StringBuilder(256);
+    key.append(root).append('\n');
+    for (Dependency dependency : managedDependencies) {
+      if (dependency.getArtifact().isSnapshot()) {
+        return null;
+      }
+      key.append("managed ").append(dependency.getArtifact()).append(' ').append(dependency.getScope())
+          .append(' ').append(dependency.getOptional());
+      for (Exclusion exclusion : dependency.getExclusions()) {
+        key.append(' ').append(exclusion);
+      }
+      key.append('\n');
+    }
+    for (RemoteRepository repository : repositories) {
+      key.append("repository ").append(repository.getId()).append(' ').append(repository.getUrl()).append('\n');
+    }
+    if (dependencyFilter == null || dependencyFilter.getClass() == MavenUtils.EmptyDependencyFilter.class) {
+      key.append("filter\n");
+    } else if (dependencyFilter instanceof CacheableDependencyFilter) {
+      key.append("filter ").append(((CacheableDependencyFilter) dependencyFilter).cacheKey()).append('\n');
+    } else {
+      return null;
+    }
+    return key.toString();
+  }
+
+  /**
+   * @return the cached resolution, or {@code null} if there is none or it is no longer consistent
+   */
+  Entry get(String key) {
+    File file = entryFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      Entry entry = read(file, key);
+      if (entry == null) {
+        remove(file);
+        return null;
+      }
+      if (!file.setLastModified(System.currentTimeMillis())) {
+        logger.debug("Failed to touch resolution cache entry {}", file);
+      }
+      return entry;
+    } catch (IOException e) {
+      logger.warn("Removing unreadable resolution cache entry {}", file, e);
+      remove(file);
+      return null;
+    }
+  }
+
+  /**
+   * Store a resolution unless it depends on snapshots or version ranges
+   *
+   * @param key       key computed by {@link #key}
+   * @param root      root of the resolved graph
+   * @param artifacts resolved artifacts
+   */
+  void put(String key, DependencyNode root, Set<Artifact> artifacts) {
+    if (!isStable(root)) {
+      return;
+    }
+    File file = entryFile(key);
+    try {
+      File tmp = File.createTempFile("entry", ".tmp", directory);
+      try {
+        write(tmp, key, root, artifacts);
+        long length = tmp.length();
+        long previous = file.length();
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        size.addAndGet(length - previous);
+      } finally {
+        if (tmp.exists() && !tmp.delete()) {
+          logger.debug("Failed to delete {}", tmp);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to write resolution cache entry {}", file, e);
+    }
+    evict();
+  }
+
+  /**
+   * Check all entries and remove the ones which are corrupted or refer to files no longer present
+   *
+   * @return number of entries removed
+   */
+  int verify() {
+    int removed = 0;
+    for (File file : entryFiles()) {
+      boolean valid;
+      try {
+        valid = read(file, null) != null;
+      } catch (IOException e) {
+        valid = false;
+      }
+      if (!valid) {
+        logger.info("Removing inconsistent resolution cache entry {}", file);
+        remove(file);
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  void clear() {
+    for (File file : entryFiles()) {
+      remove(file);
+    }
+  }
+
+  long size() {
+    return size.get();
+  }
+
+  private void evict() {
+    if (size.get() <= maxSize) {
+      return;
+    }
+    synchronized (this) {
+      File[] files = entryFiles();
+      Arrays.sort(files, new Comparator<File>() {
+        @Override
+        public int compare(File o1, File o2) {
+          long l1 = o1.lastModified();
+          long l2 = o2.lastModified();
+          return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+        }
+      });
+      for (int i = 0; i < files.length && size.get() > maxSize; i++) {
+        remove(files[i]);
+      }
+    }
+  }
+
+  private void remove(File file) {
+    long length = file.length();
+    if (file.delete()) {
+      size.addAndGet(-length);
+    }
+  }
+
+  private File[] entryFiles() {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(SUFFIX);
+      }
+    });
+    return files == null ? new File[0] : files;
+  }
+
+  private File entryFile(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF8));
+      StringBuilder name = new StringBuilder(digest.length * 2 + SUFFIX.length());
+      for (byte b : digest) {
+        name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return new File(directory, name.append(SUFFIX).toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void write(File file, String key, DependencyNode root, Set<Artifact> artifacts) throws IOException {
+    Map<DependencyNode, Integer> nodes = new IdentityHashMap<DependencyNode, Integer>();
+    List<DependencyNode> order = new ArrayList<DependencyNode>();
+    index(root, nodes, order);
+    Map<String, Integer> artifactIds = new HashMap<String, Integer>();
+    List<Artifact> table = new ArrayList<Artifact>();
+    for (Artifact artifact : artifacts) {
+      intern(artifact, artifactIds, table);
+    }
+    int resolvedCount = table.size();
+    for (DependencyNode node : order) {
+      if (node.getArtifact() != null) {
+        intern(node.getArtifact(), artifactIds, table);
+      }
+    }
+
+    CheckedOutputStream checked = new CheckedOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)), new CRC32());
+    DataOutputStream out = new DataOutputStream(checked);
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      byte[] keyBytes = key.getBytes(UTF8);
+      out.writeInt(keyBytes.length);
+      out.write(keyBytes);
+      out.writeInt(table.size());
+      out.writeInt(resolvedCount);
+      for (Artifact artifact : table) {
+        out.writeUTF(artifact.getGroupId());
+        out.writeUTF(artifact.getArtifactId());
+        out.writeUTF(artifact.getClassifier());
+        out.writeUTF(artifact.getExtension());
+        out.writeUTF(artifact.getVersion());
+        out.writeUTF(artifact.getFile() == null ? "" : artifact.getFile().getAbsolutePath());
+        Map<String, String> properties = artifact.getProperties();
+        out.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+          out.writeUTF(property.getKey());
+          out.writeUTF(property.getValue());
+        }
+      }
+      out.writeInt(order.size());
+      for (DependencyNode node : order) {
+        Dependency dependency = node.getDependency();
+        out.writeInt(node.getArtifact() == null ? -1 : artifactIds.get(artifactKey(node.getArtifact())));
+        out.writeUTF(dependency == null ? "" : dependency.getScope());
+        out.writeBoolean(dependency != null && dependency.isOptional());
+        out.writeInt(node.getChildren().size());
+        for (DependencyNode child : node.getChildren()) {
+          out.writeInt(nodes.get(child));
+        }
+      }
+      out.flush();
+      out.writeLong(checked.getChecksum().getValue());
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * @param expectedKey the key the entry must have, or {@code null} to accept any key
+   * @return the entry, or {@code null} if it is not consistent
+   */
+  private static Entry read(File file, String expectedKey) throws IOException {
+    CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(new FileInputStream(file)), new CRC32());
+    DataInputStream in = new DataInputStream(checked);
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+        return null;
+      }
+      byte[] keyBytes = new byte[in.readInt()];
+      in.readFully(keyBytes);
+      String key = new String(keyBytes, UTF8);
+      if (expectedKey != null && !expectedKey.equals(key)) {
+        return null;
+      }
+      int artifactCount = in.readInt();
+      int resolvedCount = in.readInt();
+      Artifact[] table = new Artifact[artifactCount];
+      for (int i = 0; i < artifactCount; i++) {
+        String groupId = in.readUTF();
+        String artifactId = in.readUTF();
+        String classifier = in.readUTF();
+        String extension = in.readUTF();
+        String version = in.readUTF();
+        String path = in.readUTF();
+        int propertyCount = in.readInt();
+        Map<String, String> properties = new HashMap<String, String>(propertyCount * 2);
+        for (int j = 0; j < propertyCount; j++) {
+          properties.put(in.readUTF(), in.readUTF());
+        }
+        table[i] = new DefaultArtifact(groupId, artifactId, classifier, extension, version, properties,
+            path.length() == 0 ? null : new File(path));
+      }
+      int nodeCount = in.readInt();
+      DefaultDependencyNode[] nodes = new DefaultDependencyNode[nodeCount];
+      int[][] children = new int[nodeCount][];
+      for (int i = 0; i < nodeCount; i++) {
+        int artifactIndex = in.readInt();
+        String scope = in.readUTF();
+        boolean optional = in.readBoolean();
+        nodes[i] = artifactIndex < 0
+            ? new DefaultDependencyNode((Dependency) null)
+            : new DefaultDependencyNode(new Dependency(table[artifactIndex], scope, optional));
+        children[i] = new int[in.readInt()];
+        for (int j = 0; j < children[i].length; j++) {
+          children[i][j] = in.readInt();
+        }
+      }
+      long expected = checked.getChecksum().getValue();
+      if (in.readLong() != expected) {
+        return null;
+      }
+      for (int i = 0; i < nodeCount; i++) {
+        List<DependencyNode> list = new ArrayList<DependencyNode>(children[i].length);
+        for (int child : children[i]) {
+          list.add(nodes[child]);
+        }
+        nodes[i].setChildren(list);
+      }
+      Set<Artifact> artifacts = new HashSet<Artifact>();
+      for (int i = 0; i < resolvedCount; i++) {
+        File artifactFile = table[i].getFile();
+        if (artifactFile == null || !artifactFile.isFile()) {
+          return null;
+        }
+        artifacts.add(table[i]);
+      }
+      return new Entry(nodeCount == 0 ? null : nodes[0], Collections.unmodifiableSet(artifacts));
+    } catch (EOFException e) {
+      return null;
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void index(DependencyNode node, Map<DependencyNode, Integer> nodes, List<DependencyNode> order) {
+    if (nodes.containsKey(node)) {
+      return;
+    }
+    nodes.put(node, order.size());
+    order.add(node);
+    for (DependencyNode child : node.getChildren()) {
+      index(child, nodes, order);
+    }
+  }
+
+  private static void intern(Artifact artifact, Map<String, Integer> ids, List<Artifact> table) {
+    String key = artifactKey(artifact);
+    if (!ids.containsKey(key)) {
+      ids.put(key, table.size());
+      table.add(artifact);
+    }
+  }
+
+  private static String artifactKey(Artifact artifact) {
+    return artifact + (artifact.getFile() == null ? "" : "@" + artifact.getFile().getAbsolutePath());
+  }
+
+  /**
+   * @return {@code true} if the graph has no snapshots and no version ranges, so that it resolves the same way over time
+   */
+  static boolean isStable(DependencyNode root) {
+    return isStable(root, Collections.newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>()));
+  }
+
+  private static boolean isStable(DependencyNode node, Set<DependencyNode> visited) {
+    if (!visited.add(node)) {
+      return true;
+    }
+    if (node.getArtifact() != null && node.getArtifact().isSnapshot()) {
+      return false;
+    }
+    if (node.getVersionConstraint() != null && node.getVersionConstraint().getRange() != null) {
+      return false;
+    }
+    for (DependencyNode child : node.getChildren()) {
+      if (!isStable(child, visited)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isRange(String version) {
+    return version.startsWith("[") || version.startsWith("(");
+  }
+
+  /**
+   * A cached resolution
+   */
+  static final class Entry {
+
+    private final DependencyNode root;
+    private final Set<Artifact> artifacts;
+
+    Entry(DependencyNode root, Set<Artifact> artifacts) {
+      this.root = root;
+      this.artifacts = artifacts;
+    }
+
+    DependencyNode getRoot() {
+      return root;
+    }
+
+    Set<Artifact> getArtifacts() {
+      return artifacts;
+    }
+
+  }
+
+}
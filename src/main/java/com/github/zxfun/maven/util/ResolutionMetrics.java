@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Records the repository and transfer events of the sessions of a client, and the time spent in every phase of its
+ * operations. Every event only increments counters, so the metrics can stay enabled in production.
+ */
+class ResolutionMetrics extends AbstractRepositoryListener implements ResolutionMetricsMXBean {
+
+  private final TransferListener transferListener = new Transfers();
+  private final ConcurrentMap<TransferResource, Long> transferStarts = new ConcurrentHashMap<>();
+  private volatile Counters counters = new Counters();
+
+  /**
+   * @return the listener recording the transfers of the sessions
+   */
+  TransferListener transferListener() {
+    return transferListener;
+  }
+
+  /**
+   * Record the duration of a phase
+   *
+   * @param phase name of the phase
+   * @param nanos duration
+   */
+  void time(String phase, long nanos) {
+    Counters counters = this.counters;
+    LatencyHistogram histogram = counters.phases.get(phase);
+    if (histogram == null) {
+      histogram = counters.phases.computeIfAbsent(phase, key -> new LatencyHistogram());
+    }
+    histogram.record(nanos);
+  }
+
+  /**
+   * Record an artifact found in the local repository without going through the repository system
+   */
+  void localHit() {
+    counters.artifactsResolvedLocally.increment();
+  }
+
+  @Override
+  public void artifactResolved(RepositoryEvent event) {
+    Counters counters = this.counters;
+    if (event.getRepository() instanceof LocalRepository) {
+      counters.artifactsResolvedLocally.increment();
+    } else if (event.getRepository() instanceof RemoteRepository) {
+      counters.artifactsDownloaded.increment();
+    } else if (!event.getExceptions().isEmpty()) {
+      counters.artifactsMissing.increment();
+    }
+  }
+
+  @Override
+  public void metadataResolved(RepositoryEvent event) {
+    if (event.getException() == null) {
+      counters.metadataResolved.increment();
+    }
+  }
+
+  @Override
+  public void metadataDownloaded(RepositoryEvent event) {
+    if (event.getException() == null) {
+      counters.metadataDownloaded.increment();
+    }
+  }
+
+  @Override
+  public ResolutionStats getStats() {
+    Counters counters = this.counters;
+    Map<String, RepositoryStats> repositories = new TreeMap<>();
+    for (Map.Entry<String, RepositoryCounters> entry : counters.repositories.entrySet()) {
+      RepositoryCounters repository = entry.getValue();
+      repositories.put(entry.getKey(), new RepositoryStats(entry.getKey(), repository.requests.sum(),
+          repository.failures.sum(), repository.notFound.sum(), repository.bytes.sum(), repository.latency.stats()));
+    }
+    Map<String, TimerStats> phases = new TreeMap<>();
+    for (Map.Entry<String, LatencyHistogram> entry : counters.phases.entrySet()) {
+      phases.put(entry.getKey(), entry.getValue().stats());
+    }
+    return new ResolutionStats(Collections.unmodifiableMap(repositories), Collections.unmodifiableMap(phases),
+        counters.artifactsResolvedLocally.sum(), counters.artifactsDownloaded.sum(), counters.artifactsMissing.sum(),
+        counters.metadataResolved.sum(), counters.metadataDownloaded.sum());
+  }
+
+  @Override
+  public long getArtifactsResolvedLocally() {
+    return counters.artifactsResolvedLocally.sum();
+  }
+
+  @Override
+  public long getArtifactsDownloaded() {
+    return counters.artifactsDownloaded.sum();
+  }
+
+  @Override
+  public long getBytesDownloaded() {
+    long bytes = 0;
+    for (RepositoryCounters repository : counters.repositories.values()) {
+      bytes += repository.bytes.sum();
+    }
+    return bytes;
+  }
+
+  @Override
+  public void reset() {
+    counters = new Counters();
+    transferStarts.clear();
+  }
+
+  private static final class Counters {
+
+    final ConcurrentMap<String, RepositoryCounters> repositories = new ConcurrentHashMap<>();
+    final ConcurrentMap<String, LatencyHistogram> phases = new ConcurrentHashMap<>();
+    final LongAdder artifactsResolvedLocally = new LongAdder();
+    final LongAdder artifactsDownloaded = new LongAdder();
+    final LongAdder artifactsMissing = new LongAdder();
+    final LongAdder metadataResolved = new LongAdder();
+    final LongAdder metadataDownloaded = new LongAdder();
+
+    RepositoryCounters repository(String url) {
+      RepositoryCounters repository = repositories.get(url);
+      return repository != null ? repository : repositories.computeIfAbsent(url, key -> new RepositoryCounters());
+    }
+
+  }
+
+  private static final class RepositoryCounters {
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder notFound = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+  }
+
+  private final class Transfers extends AbstractTransferListener {
+
+    @Override
+    public void transferInitiated(TransferEvent event) {
+      transferStarts.put(event.getResource(), System.nanoTime());
+      counters.repository(event.getResource().getRepositoryUrl()).requests.increment();
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+      RepositoryCounters repository = finished(event);
+      repository.bytes.add(event.getTransferredBytes());
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+      RepositoryCounters repository = finished(event);
+      repository.failures.increment();
+      Exception exception = event.getException();
+      if (exception instanceof ArtifactNotFoundException || exception instanceof MetadataNotFoundException) {
+        repository.notFound.increment();
+      }
+    }
+
+    private RepositoryCounters finished(TransferEvent event) {
+      RepositoryCounters repository = counters.repository(event.getResource().getRepositoryUrl());
+      Long start = transferStarts.remove(event.getResource());
+      if (start != null) {
+        repository.latency.record(System.nanoTime() - start);
+      }
+      return repository;
+    }
+
+  }
+
+}
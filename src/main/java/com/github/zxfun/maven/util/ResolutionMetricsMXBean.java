@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+
+/**
+ * Management interface of the resolution metrics of a {@link MavenClient}, registered when
+ * {@code maven.util.metrics.jmx} is enabled.
+ */
+public interface ResolutionMetricsMXBean {
+
+  ResolutionStats getStats();
+
+  long getArtifactsResolvedLocally();
+
+  long getArtifactsDownloaded();
+
+  long getBytesDownloaded();
+
+  /**
+   * Start counting from zero again
+   */
+  void reset();
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import java.util.Map;
+
+
+/**
+ * Point in time statistics of the resolutions of a {@link MavenClient}: transfers per remote repository, artifacts
+ * served by the local repository versus downloaded, and time spent in every phase of the resolution.
+ */
+public final class ResolutionStats {
+
+  private final Map<String, RepositoryStats> repositories;
+  private final Map<String, TimerStats> phases;
+  private final long artifactsResolvedLocally;
+  private final long artifactsDownloaded;
+  private final long artifactsMissing;
+  private final long metadataResolved;
+  private final long metadataDownloaded;
+
+  ResolutionStats(Map<String, RepositoryStats> repositories,
+                  Map<String, TimerStats> phases,
+                  long artifactsResolvedLocally,
+                  long artifactsDownloaded,
+                  long artifactsMissing,
+                  long metadataResolved,
+                  long metadataDownloaded) {
+    this.repositories = repositories;
+    this.phases = phases;
+    this.artifactsResolvedLocally = artifactsResolvedLocally;
+    this.artifactsDownloaded = artifactsDownloaded;
+    this.artifactsMissing = artifactsMissing;
+    this.metadataResolved = metadataResolved;
+    this.metadataDownloaded = metadataDownloaded;
+  }
+
+  /**
+   * @return transfer statistics by repository url
+   */
+  public Map<String, RepositoryStats> getRepositories() {
+    return repositories;
+  }
+
+  /**
+   * @return durations by phase: {@code versions}, {@code artifact}, {@code prefetch}, {@code collect} and
+   * {@code resolve}
+   */
+  public Map<String, TimerStats> getPhases() {
+    return phases;
+  }
+
+  /**
+   * @return number of artifacts found in the local repository
+   */
+  public long getArtifactsResolvedLocally() {
+    return artifactsResolvedLocally;
+  }
+
+  /**
+   * @return number of artifacts downloaded from a remote repository
+   */
+  public long getArtifactsDownloaded() {
+    return artifactsDownloaded;
+  }
+
+  /**
+   * @return number of artifacts which could not be resolved
+   */
+  public long getArtifactsMissing() {
+    return artifactsMissing;
+  }
+
+  /**
+   * @return number of metadata files resolved, from the local or a remote repository
+   */
+  public long getMetadataResolved() {
+    return metadataResolved;
+  }
+
+  /**
+   * @return number of metadata files downloaded from a remote repository
+   */
+  public long getMetadataDownloaded() {
+    return metadataDownloaded;
+  }
+
+  /**
+   * @return number of bytes transferred from all remote repositories
+   */
+  public long getBytesDownloaded() {
+    long bytes = 0;
+    for (RepositoryStats repository : repositories.values()) {
+      bytes += repository.getBytes();
+    }
+    return bytes;
+  }
+
+  public double getLocalHitRate() {
+    long total = artifactsResolvedLocally + artifactsDownloaded;
+    return total == 0 ? 0 : (double) artifactsResolvedLocally / total;
+  }
+
+  @Override
+  public String toString() {
+    return "ResolutionStats{artifactsResolvedLocally=" + artifactsResolvedLocally
+        + ", artifactsDownloaded=" + artifactsDownloaded + ", artifactsMissing=" + artifactsMissing
+        + ", metadataResolved=" + metadataResolved + ", metadataDownloaded=" + metadataDownloaded
+        + ", repositories=" + repositories.values() + ", phases=" + phases + "}";
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.AbstractRepositoryListener;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.MetadataRequest;
+import org.eclipse.aether.resolution.MetadataResult;
+import org.eclipse.aether.util.ConfigUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Keeps the snapshot metadata of recently used artifacts fresh in the background. Foreground requests search copies of
+ * the snapshot repositories whose snapshot update policy is {@code never}, so they are answered from the metadata
+ * already in the local repository without checking the repository for updates; metadata missing locally is still
+ * downloaded. Every metadata such a request needs is recorded, and a scheduled task resolves it again from the
+ * configured repository, on its configured update policy, until it has not been used for a while.
+ */
+class SnapshotMetadataRefresher extends AbstractRepositoryListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotMetadataRefresher.class);
+
+  /**
+   * Session config property marking the sessions of the refresher, whose requests are not recorded
+   */
+  static final String REFRESHING = "maven.util.snapshot-refresh";
+
+  private final Map<String, RemoteRepository> originals = new HashMap<>();
+  private final Map<String, RemoteRepository> foreground = new HashMap<>();
+  private final LruCache<String, Entry> entries;
+  private final long intervalMillis;
+  private final long idleMillis;
+  private final Supplier<RepositorySystem> repositorySystem;
+  private final Supplier<DefaultRepositorySystemSession> sessions;
+  private final Lazy<ScheduledExecutorService> executor = new Lazy<>(this::start);
+
+  /**
+   * @param repositories     the configured remote repositories
+   * @param maxEntries       maximum number of metadata kept fresh
+   * @param intervalMillis   delay between two refreshes
+   * @param idleMillis       how long metadata is kept fresh after its last use
+   * @param repositorySystem repository system resolving the metadata
+   * @param sessions         creates the sessions of the refreshes
+   */
+  SnapshotMetadataRefresher(List<RemoteRepository> repositories,
+                            int maxEntries,
+                            long intervalMillis,
+                            long idleMillis,
+                            Supplier<RepositorySystem> repositorySystem,
+                            Supplier<DefaultRepositorySystemSession> sessions) {
+    for (RemoteRepository repository : repositories) {
+      RepositoryPolicy policy = repository.getPolicy(true);
+      if (policy.isEnabled()) {
+        originals.put(repository.getId(), repository);
+        foreground.put(repository.getId(), new RemoteRepository.Builder(repository)
+            .setSnapshotPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+                policy.getChecksumPolicy()))
+            .build());
+      }
+    }
+    this.entries = new LruCache<String, Entry>(maxEntries);
+    this.intervalMillis = intervalMillis;
+    this.idleMillis = idleMillis;
+    this.repositorySystem = repositorySystem;
+    this.sessions = sessions;
+  }
+
+  /**
+   * @param repository a configured remote repository
+   * @return the repository to search in the foreground in place of the given one
+   */
+  RemoteRepository foreground(RemoteRepository repository) {
+    RemoteRepository copy = foreground.get(repository.getId());
+    return copy == null || !isOriginal(repository) ? repository : copy;
+  }
+
+  @Override
+  public void metadataResolving(RepositoryEvent event) {
+    Metadata metadata = event.getMetadata();
+    ArtifactRepository repository = event.getRepository();
+    if (metadata == null || metadata.getNature() == Metadata.Nature.RELEASE
+        || !(repository instanceof RemoteRepository)
+        || ConfigUtils.getBoolean(event.getSession(), false, REFRESHING)) {
+      return;
+    }
+    RemoteRepository original = originals.get(repository.getId());
+    if (original == null || !original.getUrl().equals(((RemoteRepository) repository).getUrl())) {
+      return;
+    }
+    String key = original.getId() + "|" + metadata + "|" + metadata.getNature();
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      entries.put(key, new Entry(key, metadata.setFile(null), original));
+    } else {
+      entry.lastUsed = System.currentTimeMillis();
+    }
+    executor.get();
+  }
+
+  /**
+   * Resolve again the metadata used recently, and forget the metadata not used for longer than the idle time.
+   *
+   * @return the number of metadata resolved
+   */
+  int refresh() {
+    long idleSince = System.currentTimeMillis() - idleMillis;
+    List<MetadataRequest> requests = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      if (entry.lastUsed < idleSince) {
+        entries.remove(entry.key);
+        continue;
+      }
+      MetadataRequest request = new MetadataRequest(entry.metadata, entry.repository, "");
+      request.setDeleteLocalCopyIfMissing(true);
+      requests.add(request);
+    }
+    if (requests.isEmpty()) {
+      return 0;
+    }
+    DefaultRepositorySystemSession session = sessions.get();
+    session.setConfigProperty(REFRESHING, true);
+    int failures = 0;
+    for (MetadataResult result : repositorySystem.get().resolveMetadata(session, requests)) {
+      if (result.getException() != null) {
+        failures++;
+        logger.debug("Failed to refresh {} from {}", result.getRequest().getMetadata(),
+            result.getRequest().getRepository(), result.getException());
+      }
+    }
+    logger.debug("Refreshed {} snapshot metadata, {} failed", requests.size(), failures);
+    return requests.size();
+  }
+
+  /**
+   * @return the number of metadata kept fresh
+   */
+  int size() {
+    return entries.size();
+  }
+
+  void shutdown() {
+    ScheduledExecutorService scheduler = executor.getIfCreated();
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private boolean isOriginal(RemoteRepository repository) {
+    return originals.get(repository.getId()).getUrl().equals(repository.getUrl());
+  }
+
+  private ScheduledExecutorService start() {
+    ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("maven-utils-snapshot-refresh"));
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (RuntimeException e) {
+        // an exception would cancel the task
+        logger.warn("Failed to refresh snapshot metadata", e);
+      }
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    return scheduler;
+  }
+
+  private static final class Entry {
+
+    final String key;
+    final Metadata metadata;
+    final RemoteRepository repository;
+    volatile long lastUsed = System.currentTimeMillis();
+
+    Entry(String key, Metadata metadata, RemoteRepository repository) {
+      this.key = key;
+      this.metadata = metadata;
+      this.repository = repository;
+    }
+  }
+
+}
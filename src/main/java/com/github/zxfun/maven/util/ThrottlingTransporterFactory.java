@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.util.ConfigUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+
+/**
+ * HTTP {@link TransporterFactory} limiting the number of requests running concurrently against each remote
+ * repository, across all sessions and connectors. The limit is read from the session config property
+ * {@value #MAX_CONNECTIONS}; without it, transporters are not limited. When the session carries a
+ * {@link RepositoryRouter}, the version metadata requests are also hedged by it.
+ */
+public class ThrottlingTransporterFactory implements TransporterFactory, Service {
+
+  static final String MAX_CONNECTIONS = "maven.util.max-connections-per-repository";
+
+  private final HttpTransporterFactory delegate = new HttpTransporterFactory();
+  private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+  @Override
+  public void initService(ServiceLocator locator) {
+    delegate.initService(locator);
+  }
+
+  @Override
+  public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository)
+      throws NoTransporterException {
+    Transporter transporter = delegate.newInstance(session, repository);
+    int maxConnections = ConfigUtils.getInteger(session, 0, MAX_CONNECTIONS);
+    if (maxConnections > 0) {
+      Semaphore semaphore = permits.computeIfAbsent(repository.getUrl(), url -> new Semaphore(maxConnections, true));
+      transporter = new ThrottlingTransporter(transporter, semaphore);
+    }
+    Object router = session.getConfigProperties().get(RepositoryRouter.ROUTER);
+    if (router instanceof RepositoryRouter) {
+      // hedged requests take their own permit
+      transporter = ((RepositoryRouter) router).hedging(transporter, repository);
+    }
+    return transporter;
+  }
+
+  @Override
+  public float getPriority() {
+    return delegate.getPriority();
+  }
+
+  private static final class ThrottlingTransporter implements Transporter {
+
+    private final Transporter delegate;
+    private final Semaphore semaphore;
+
+    ThrottlingTransporter(Transporter delegate, Semaphore semaphore) {
+      this.delegate = delegate;
+      this.semaphore = semaphore;
+    }
+
+    @Override
+    public int classify(Throwable error) {
+      return delegate.classify(error);
+    }
+
+    @Override
+    public void peek(PeekTask task) throws Exception {
+      semaphore.acquire();
+      try {
+        delegate.peek(task);
+      } finally {
+        semaphore.release();
+      }
+    }
+
+    @Override
+    public void get(GetTask task) throws Exception {
+      semaphore.acquire();
+      try {
+        delegate.get(task);
+      } finally {
+        semaphore.release();
+      }
+    }
+
+    @Override
+    public void put(PutTask task) throws Exception {
+      semaphore.acquire();
+      try {
+        delegate.put(task);
+      } finally {
+        semaphore.release();
+      }
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+
+  }
+
+}
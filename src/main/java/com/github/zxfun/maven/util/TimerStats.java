@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import java.util.Arrays;
+
+
+/**
+ * Point in time statistics of a timed operation. Percentiles are estimated from a histogram with buckets doubling in
+ * size, so they are upper bounds within a factor of 2 of the exact value.
+ */
+public final class TimerStats {
+
+  private final long count;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long[] buckets;
+
+  TimerStats(long count, long totalNanos, long maxNanos, long[] buckets) {
+    this.count = count;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.buckets = buckets;
+  }
+
+  /**
+   * @return number of recorded durations
+   */
+  public long getCount() {
+    return count;
+  }
+
+  public double getTotalMillis() {
+    return totalNanos / 1e6;
+  }
+
+  public double getMeanMillis() {
+    return count == 0 ? 0 : totalNanos / 1e6 / count;
+  }
+
+  public double getMaxMillis() {
+    return maxNanos / 1e6;
+  }
+
+  public double getMedianMillis() {
+    return percentileMillis(0.5);
+  }
+
+  public double getP90Millis() {
+    return percentileMillis(0.9);
+  }
+
+  public double getP99Millis() {
+    return percentileMillis(0.99);
+  }
+
+  /**
+   * @return number of durations per bucket, bucket {@code i} counting the durations below {@code 2^i} microseconds
+   */
+  public long[] getBuckets() {
+    return buckets.clone();
+  }
+
+  /**
+   * @param percentile between 0 and 1
+   * @return upper bound of the given percentile of the durations, in milliseconds
+   */
+  public double percentileMillis(double percentile) {
+    long total = 0;
+    for (long bucket : buckets) {
+      total += bucket;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        return Math.min((1L << i) / 1e3, getMaxMillis());
+      }
+    }
+    return getMaxMillis();
+  }
+
+  @Override
+  public String toString() {
+    return "TimerStats{count=" + count + ", meanMillis=" + getMeanMillis() + ", p99Millis=" + getP99Millis()
+        + ", maxMillis=" + getMaxMillis() + ", buckets=" + Arrays.toString(buckets) + "}";
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Options of a dependency graph traversal, see {@link MavenClient#traverse}.
+ */
+public final class TraversalOptions {
+
+  private int maxDepth = Integer.MAX_VALUE;
+  private boolean resolveArtifacts = true;
+  private List<RemoteRepository> repositories = Collections.emptyList();
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Limit the depth of the graph. Nodes deeper than the limit are neither collected nor visited.
+   *
+   * @param maxDepth maximum depth, 0 for the root only, 1 for the root and its direct dependencies and so on
+   * @return these options
+   */
+  public TraversalOptions setMaxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("Negative max depth: " + maxDepth);
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  public boolean isResolveArtifacts() {
+    return resolveArtifacts;
+  }
+
+  /**
+   * @param resolveArtifacts {@code false} to only collect the graph, without downloading the artifact files. When
+   *                         {@code true}, the artifact of each node is resolved right before the node is visited.
+   * @return these options
+   */
+  public TraversalOptions setResolveArtifacts(boolean resolveArtifacts) {
+    this.resolveArtifacts = resolveArtifacts;
+    return this;
+  }
+
+  public List<RemoteRepository> getRepositories() {
+    return repositories;
+  }
+
+  /**
+   * @param repositories additional repositories used to resolve the graph
+   * @return these options
+   */
+  public TraversalOptions setRepositories(List<RemoteRepository> repositories) {
+    this.repositories = repositories == null ? Collections.<RemoteRepository>emptyList() : repositories;
+    return this;
+  }
+
+}
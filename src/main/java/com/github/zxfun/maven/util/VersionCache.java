@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.version.Version;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * In memory cache of the complete version listing of artifacts, keyed by group id, artifact id and whether snapshot or
+ * release versions are listed. Empty listings are cached as well, usually for a shorter time, so that polling for an
+ * artifact which does not exist does not hit the repositories either.
+ */
+class VersionCache {
+
+  private final LruCache<Key, Entry> entries;
+  private final long ttl;
+  private final long negativeTtl;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong negativeHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param maxEntries  maximum number of listings kept
+   * @param ttl         milliseconds a non empty listing is kept
+   * @param negativeTtl milliseconds an empty listing is kept
+   */
+  VersionCache(int maxEntries, long ttl, long negativeTtl) {
+    this.entries = new LruCache<Key, Entry>(maxEntries);
+    this.ttl = ttl;
+    this.negativeTtl = negativeTtl;
+  }
+
+  List<Version> get(String groupId, String artifactId, boolean snapshot) {
+    return get(groupId, artifactId, snapshot, System.currentTimeMillis());
+  }
+
+  List<Version> get(String groupId, String artifactId, boolean snapshot, long now) {
+    Key key = new Key(groupId, artifactId, snapshot);
+    Entry entry = entries.get(key);
+    if (entry == null || entry.expires <= now) {
+      if (entry != null) {
+        entries.remove(key);
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    if (entry.versions.isEmpty()) {
+      negativeHits.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return entry.versions;
+  }
+
+  void put(String groupId, String artifactId, boolean snapshot, List<Version> versions) {
+    put(groupId, artifactId, snapshot, versions, System.currentTimeMillis());
+  }
+
+  void put(String groupId, String artifactId, boolean snapshot, List<Version> versions, long now) {
+    long expires = now + (versions.isEmpty() ? negativeTtl : ttl);
+    entries.put(new Key(groupId, artifactId, snapshot), new Entry(versions, expires));
+  }
+
+  void invalidate(String groupId, String artifactId) {
+    entries.remove(new Key(groupId, artifactId, false));
+    entries.remove(new Key(groupId, artifactId, true));
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  VersionCacheStats stats() {
+    return new VersionCacheStats(hits.get(), negativeHits.get(), misses.get(), entries.evictions(), entries.size());
+  }
+
+  private static final class Entry {
+
+    private final List<Version> versions;
+    private final long expires;
+
+    Entry(List<Version> versions, long expires) {
+      this.versions = Collections.unmodifiableList(versions);
+      this.expires = expires;
+    }
+
+  }
+
+  private static final class Key {
+
+    private final String groupId;
+    private final String artifactId;
+    private final boolean snapshot;
+
+    Key(String groupId, String artifactId, boolean snapshot) {
+      this.groupId = groupId;
+      this.artifactId = artifactId;
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) obj;
+      return snapshot == that.snapshot && groupId.equals(that.groupId) && artifactId.equals(that.artifactId);
+    }
+
+    @Override
+    public int hashCode() {
+      return (groupId.hashCode() * 31 + artifactId.hashCode()) * 31 + (snapshot ? 1 : 0);
+    }
+
+  }
+
+}
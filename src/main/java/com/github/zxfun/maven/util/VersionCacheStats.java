@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+
+/**
+ * Point in time statistics of the version listing cache used by {@link MavenUtils#allVersions}.
+ */
+public final class VersionCacheStats {
+
+  private final long hits;
+  private final long negativeHits;
+  private final long misses;
+  private final long evictions;
+  private final int size;
+
+  VersionCacheStats(long hits, long negativeHits, long misses, long evictions, int size) {
+    this.hits = hits;
+    this.negativeHits = negativeHits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+  }
+
+  /**
+   * @return number of lookups answered with a cached, non empty listing
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return number of lookups answered with a cached empty listing
+   */
+  public long getNegativeHits() {
+    return negativeHits;
+  }
+
+  /**
+   * @return number of lookups which had to query the repositories
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return number of listings evicted because the cache was full
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return number of listings currently cached
+   */
+  public int getSize() {
+    return size;
+  }
+
+  public double getHitRate() {
+    long total = hits + negativeHits + misses;
+    return total == 0 ? 0 : (double) (hits + negativeHits) / total;
+  }
+
+  @Override
+  public String toString() {
+    return "VersionCacheStats{hits=" + hits + ", negativeHits=" + negativeHits + ", misses=" + misses
+        + ", evictions=" + evictions + ", size=" + size + "}";
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+
+public class AsyncExecutorTest {
+
+  private final AsyncExecutor executor = new AsyncExecutor(2);
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdown();
+  }
+
+  @Test
+  public void testComplete() throws Exception {
+    CompletableFuture<String> future = executor.submit(new DefaultRepositorySystemSession(), 0, session -> "done");
+    assertEquals("done", future.get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    CompletableFuture<String> future = executor.submit(new DefaultRepositorySystemSession(), 0, session -> {
+      throw new IllegalStateException("failed");
+    });
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testTimeoutInterrupts() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    CompletableFuture<String> future = executor.submit(new DefaultRepositorySystemSession(), 50, session -> {
+      try {
+        Thread.sleep(10000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+        throw e;
+      }
+      return "done";
+    });
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCancelInterrupts() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    CompletableFuture<String> future = executor.submit(new DefaultRepositorySystemSession(), 0, session -> {
+      started.countDown();
+      try {
+        Thread.sleep(10000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+        throw e;
+      }
+      return "done";
+    });
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    assertTrue(future.cancel(true));
+    assertTrue(future.isCancelled());
+    assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+  }
+}
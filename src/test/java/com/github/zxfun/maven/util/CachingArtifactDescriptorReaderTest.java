@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+
+public class CachingArtifactDescriptorReaderTest {
+
+  @Test
+  public void testKeyIncludesRepositories() {
+    DefaultArtifact artifact = new DefaultArtifact("com.example:a:1.0");
+    RemoteRepository central = new RemoteRepository.Builder("central", "default", "http://central/").build();
+    RemoteRepository mirror = new RemoteRepository.Builder("central", "default", "http://mirror/").build();
+    RemoteRepository other = new RemoteRepository.Builder("other", "default", "http://other/").build();
+
+    CachingArtifactDescriptorReader.Key key =
+        new CachingArtifactDescriptorReader.Key(artifact, Collections.singletonList(central));
+    CachingArtifactDescriptorReader.Key same = new CachingArtifactDescriptorReader.Key(
+        new DefaultArtifact("com.example:a:1.0"), Collections.singletonList(central));
+    assertEquals(key, same);
+    assertEquals(key.hashCode(), same.hashCode());
+    assertNotEquals(key, new CachingArtifactDescriptorReader.Key(artifact, Collections.singletonList(mirror)));
+    assertNotEquals(key, new CachingArtifactDescriptorReader.Key(artifact, Arrays.asList(central, other)));
+    assertNotEquals(key, new CachingArtifactDescriptorReader.Key(artifact, Collections.<RemoteRepository>emptyList()));
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class DependencyGraphStoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReverseQueries() {
+    DependencyGraphStore store = store();
+
+    assertEquals(7, store.size());
+    assertEquals(6, store.edgeCount());
+    assertEquals(ids("g:app1:jar:1.0", "g:app2:jar:1.0", "g:app3:jar:1.0"), ids(store.roots()));
+    assertEquals(ids("g:lib:jar:1.0", "g:other:jar:1.0"), ids(store.dependents(artifact("g:log:2.14"))));
+    assertEquals(ids("g:log:jar:2.14", "g:log:jar:2.17"), ids(store.dependencies(artifact("g:lib:1.0"))));
+
+    // app2 depends on lib too, but its graph has log 2.17, as picked by conflict resolution
+    assertEquals(ids("g:app1:jar:1.0", "g:app3:jar:1.0"), ids(store.rootsDependingOn(artifact("g:log:2.14"))));
+    assertEquals(ids("g:app2:jar:1.0"), ids(store.rootsDependingOn(artifact("g:log:2.17"))));
+    assertTrue(store.rootsDependingOn(artifact("g:missing:1.0")).isEmpty());
+
+    assertEquals(Arrays.asList("g:app1:jar:1.0", "g:lib:jar:1.0", "g:log:jar:2.14"),
+        ids(store.pathToRoot(artifact("g:log:2.14"))));
+    assertEquals(Arrays.asList("g:app3:jar:1.0", "g:other:jar:1.0", "g:log:jar:2.14"),
+        ids(store.pathToRoot(artifact("g:log:2.14"), artifact("g:app3:1.0"))));
+    assertTrue(store.pathToRoot(artifact("g:log:2.14"), artifact("g:app2:1.0")).isEmpty());
+
+    assertEquals(Arrays.asList("2.14", "2.17"), store.versions("g", "log"));
+    assertEquals(Collections.singletonMap("g:log", Arrays.asList("2.14", "2.17")), store.versionSpread());
+  }
+
+  @Test
+  public void testPathWithinRootGraph() throws IOException {
+    DependencyGraphStore store = new DependencyGraphStore();
+    store.add(node("g:r2:1.0", node("g:a:1.0", node("g:b:1.0"))));
+    // b is excluded below a in the graph of r1, which pulls it in through c instead
+    store.add(node("g:r1:1.0", node("g:a:1.0"), node("g:c:1.0", node("g:b:1.0"))));
+
+    assertEquals(Arrays.asList("g:r1:jar:1.0", "g:c:jar:1.0", "g:b:jar:1.0"),
+        ids(store.pathToRoot(artifact("g:b:1.0"), artifact("g:r1:1.0"))));
+    assertEquals(Arrays.asList("g:r2:jar:1.0", "g:a:jar:1.0", "g:b:jar:1.0"),
+        ids(store.pathToRoot(artifact("g:b:1.0"), artifact("g:r2:1.0"))));
+    assertTrue(store.pathToRoot(artifact("g:c:1.0"), artifact("g:r2:1.0")).isEmpty());
+
+    File file = new File(folder.getRoot(), "graph.bin");
+    store.writeTo(file);
+    assertEquals(Arrays.asList("g:r1:jar:1.0", "g:c:jar:1.0", "g:b:jar:1.0"),
+        ids(DependencyGraphStore.readFrom(file).pathToRoot(artifact("g:b:1.0"), artifact("g:r1:1.0"))));
+  }
+
+  @Test
+  public void testReplaceRoot() {
+    DependencyGraphStore store = store();
+    store.add(node("g:app1:1.0", node("g:lib:1.0")));
+
+    assertEquals(ids("g:app3:jar:1.0"), ids(store.rootsDependingOn(artifact("g:log:2.14"))));
+    assertEquals(ids("g:app1:jar:1.0", "g:app2:jar:1.0"), ids(store.rootsDependingOn(artifact("g:lib:1.0"))));
+  }
+
+  @Test
+  public void testReplacedGraphLeavesNothingBehind() throws IOException {
+    DependencyGraphStore store = new DependencyGraphStore();
+    store.add(node("g:root:1", node("g:x:1", node("g:log:1"))));
+    store.add(node("g:root:1", node("g:x:2", node("g:log:2"))));
+
+    assertEquals(ids("g:x:jar:2"), ids(store.dependencies(artifact("g:root:1"))));
+    assertTrue(store.dependents(artifact("g:log:1")).isEmpty());
+    assertEquals(Arrays.asList("2"), store.versions("g", "log"));
+    assertTrue(store.versionSpread().isEmpty());
+    assertFalse(store.contains(artifact("g:x:1")));
+    assertEquals(3, store.size());
+    assertEquals(2, store.edgeCount());
+
+    File file = new File(folder.getRoot(), "graph.bin");
+    store.writeTo(file);
+    DependencyGraphStore read = DependencyGraphStore.readFrom(file);
+    assertEquals(ids(store.dependencies(artifact("g:root:1"))), ids(read.dependencies(artifact("g:root:1"))));
+    assertEquals(store.versions("g", "log"), read.versions("g", "log"));
+    assertEquals(store.size(), read.size());
+    assertEquals(store.edgeCount(), read.edgeCount());
+  }
+
+  @Test
+  public void testVisitor() throws Exception {
+    DependencyGraphStore store = new DependencyGraphStore();
+    DependencyNode root = node("g:app1:1.0", node("g:lib:1.0", node("g:log:2.14")));
+    new DependencyGraphWalker(store.visitor(), null, Integer.MAX_VALUE, null).walk(root);
+
+    assertEquals(3, store.size());
+    assertEquals(Arrays.asList("g:app1:jar:1.0", "g:lib:jar:1.0", "g:log:jar:2.14"),
+        ids(store.pathToRoot(artifact("g:log:2.14"))));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    DependencyGraphStore store = store();
+    File file = new File(folder.getRoot(), "graph.bin");
+    store.writeTo(file);
+
+    DependencyGraphStore read = DependencyGraphStore.readFrom(file);
+    assertEquals(store.size(), read.size());
+    assertEquals(store.edgeCount(), read.edgeCount());
+    assertEquals(ids(store.roots()), ids(read.roots()));
+    assertEquals(ids(store.rootsDependingOn(artifact("g:log:2.14"))),
+        ids(read.rootsDependingOn(artifact("g:log:2.14"))));
+    assertEquals(store.versionSpread(), read.versionSpread());
+    assertEquals(1, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testCorruptedFile() throws IOException {
+    File file = new File(folder.getRoot(), "graph.bin");
+    store().writeTo(file);
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(12);
+      int b = raf.read();
+      raf.seek(12);
+      raf.write(b ^ 1);
+    } finally {
+      raf.close();
+    }
+    try {
+      DependencyGraphStore.readFrom(file);
+      fail("Corruption not detected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * app1 -> lib -> log 2.14, app2 -> lib -> log 2.17, app3 -> other -> log 2.14
+   */
+  private static DependencyGraphStore store() {
+    DependencyGraphStore store = new DependencyGraphStore();
+    store.add(node("g:app1:1.0", node("g:lib:1.0", node("g:log:2.14"))));
+    store.add(node("g:app2:1.0", node("g:lib:1.0", node("g:log:2.17"))));
+    store.add(node("g:app3:1.0", node("g:other:1.0", node("g:log:2.14"))));
+    return store;
+  }
+
+  private static DependencyNode node(String coordinates, DependencyNode... children) {
+    DefaultDependencyNode node = new DefaultDependencyNode(new Dependency(artifact(coordinates), "compile"));
+    node.setChildren(new ArrayList<DependencyNode>(Arrays.asList(children)));
+    return node;
+  }
+
+  private static Artifact artifact(String coordinates) {
+    return new DefaultArtifact(coordinates);
+  }
+
+  private static List<String> ids(String... ids) {
+    return Arrays.asList(ids);
+  }
+
+  private static List<String> ids(List<Artifact> artifacts) {
+    List<String> ids = new ArrayList<String>();
+    for (Artifact artifact : artifacts) {
+      ids.add(artifact.toString());
+    }
+    return ids;
+  }
+
+}
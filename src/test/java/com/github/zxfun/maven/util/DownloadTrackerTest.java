@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class DownloadTrackerTest {
+
+  @Test
+  public void testDownloads() throws Exception {
+    DownloadTracker tracker = new DownloadTracker(0);
+    File file = new File("com/example/lib/1.0/lib-1.0.jar");
+    TransferResource resource =
+        new TransferResource("http://repo.example.com/", "com/example/lib/1.0/lib-1.0.jar", file, null);
+    resource.setContentLength(1000);
+    TransferEvent.Builder event = new TransferEvent.Builder(new DefaultRepositorySystemSession(), resource)
+        .setRequestType(TransferEvent.RequestType.GET);
+
+    tracker.transferInitiated(event.setType(TransferEvent.EventType.INITIATED).build());
+    assertTrue(tracker.downloads().isEmpty());
+    tracker.transferStarted(event.setType(TransferEvent.EventType.STARTED).build());
+    tracker.transferProgressed(event.setType(TransferEvent.EventType.PROGRESSED).setTransferredBytes(400).build());
+    Thread.sleep(10);
+    List<DownloadProgress> downloads = tracker.downloads();
+    assertEquals(1, downloads.size());
+    DownloadProgress progress = downloads.get(0);
+    assertEquals("http://repo.example.com/com/example/lib/1.0/lib-1.0.jar", progress.getUrl());
+    assertEquals(file, progress.getFile());
+    assertEquals(1000, progress.getTotalBytes());
+    assertEquals(400, progress.getTransferredBytes());
+    assertTrue(progress.getElapsedMillis() >= 10);
+    assertTrue(progress.getBytesPerSecond() > 0);
+
+    tracker.transferSucceeded(event.setType(TransferEvent.EventType.SUCCEEDED).setTransferredBytes(1000).build());
+    assertTrue(tracker.downloads().isEmpty());
+  }
+
+  @Test
+  public void testUploadsIgnored() throws Exception {
+    DownloadTracker tracker = new DownloadTracker(0);
+    TransferEvent.Builder event = new TransferEvent.Builder(new DefaultRepositorySystemSession(),
+        new TransferResource("http://repo.example.com/", "com/example/lib/1.0/lib-1.0.jar", null, null))
+        .setRequestType(TransferEvent.RequestType.PUT);
+    tracker.transferStarted(event.setType(TransferEvent.EventType.STARTED).build());
+    assertTrue(tracker.downloads().isEmpty());
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+
+public class InterpolatorTest {
+
+  @Test
+  public void testEmbeddedPlaceholders() throws Exception {
+    Interpolator interpolator = new Interpolator(properties("version", "1.0", "classifier", "tests"));
+    assertEquals("1.0-tests", interpolator.interpolate("${version}-${classifier}"));
+    assertEquals("v1.0", interpolator.interpolate("v${version}"));
+    String constant = "1.0";
+    assertSame(constant, interpolator.interpolate(constant));
+    assertNull(interpolator.interpolate(null));
+  }
+
+  @Test
+  public void testRecursiveProperties() throws Exception {
+    Interpolator interpolator = new Interpolator(properties(
+        "a", "${b}.1", "b", "${c}.0", "c", "2", "env", "prod", "lib.prod.version", "3.0"));
+    assertEquals("2.0.1", interpolator.interpolate("${a}"));
+    assertEquals("3.0", interpolator.interpolate("${lib.${env}.version}"));
+  }
+
+  @Test
+  public void testUnresolved() throws Exception {
+    Interpolator interpolator = new Interpolator(properties("a", "${b}", "b", "${a}", "env", "prod"));
+    String unknown = "${unknown}-${unclosed";
+    assertSame(unknown, interpolator.interpolate(unknown));
+    assertEquals("${a}", interpolator.interpolate("${a}"));
+    assertEquals("${lib.prod.version}", interpolator.interpolate("${lib.${env}.version}"));
+  }
+
+  @Test
+  public void testCycleIndependentOfLookupOrder() throws Exception {
+    Properties properties = properties("a", "${b}", "b", "${a}-x", "c", "${a}");
+    Interpolator interpolator = new Interpolator(properties);
+    assertNull(interpolator.property("a"));
+    assertNull(interpolator.property("b"));
+    assertEquals("${a}", interpolator.property("c"));
+
+    interpolator = new Interpolator(properties);
+    assertEquals("${a}", interpolator.property("c"));
+    assertNull(interpolator.property("b"));
+    assertNull(interpolator.property("a"));
+  }
+
+  @Test
+  public void testTemplateCache() throws Exception {
+    assertSame(Interpolator.template("${a}-${b}"), Interpolator.template("${a}-${b}"));
+  }
+
+  @Test
+  public void testModel() throws Exception {
+    Model model = new Model();
+    Parent parent = new Parent();
+    parent.setGroupId("com.example");
+    parent.setArtifactId("parent");
+    parent.setVersion("2.0");
+    model.setParent(parent);
+    model.setArtifactId("app");
+    model.addProperty("junit.version", "4.${junit.minor}");
+    model.addProperty("junit.minor", "12");
+
+    Dependency junit = new Dependency();
+    junit.setGroupId("junit");
+    junit.setArtifactId("junit");
+    junit.setVersion("${junit.version}");
+    Exclusion exclusion = new Exclusion();
+    exclusion.setGroupId("${project.groupId}");
+    exclusion.setArtifactId("excluded");
+    junit.addExclusion(exclusion);
+    model.addDependency(junit);
+
+    Dependency tests = new Dependency();
+    tests.setGroupId("${project.groupId}");
+    tests.setArtifactId("core");
+    tests.setVersion("${project.version}");
+    tests.setClassifier("${classifier}-tests");
+    DependencyManagement dependencyManagement = new DependencyManagement();
+    dependencyManagement.addDependency(tests);
+    model.setDependencyManagement(dependencyManagement);
+
+    Model result = MavenUtils.interpolate(model, properties("classifier", "it"));
+    assertEquals("4.12", result.getProperties().getProperty("junit.version"));
+    assertEquals("4.12", result.getDependencies().get(0).getVersion());
+    assertEquals("com.example", result.getDependencies().get(0).getExclusions().get(0).getGroupId());
+    Dependency managed = result.getDependencyManagement().getDependencies().get(0);
+    assertEquals("com.example", managed.getGroupId());
+    assertEquals("2.0", managed.getVersion());
+    assertEquals("it-tests", managed.getClassifier());
+    assertEquals("${junit.version}", model.getDependencies().get(0).getVersion());
+  }
+
+  private static Properties properties(String... keyValues) {
+    Properties properties = new Properties();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      properties.setProperty(keyValues[i], keyValues[i + 1]);
+    }
+    return properties;
+  }
+}
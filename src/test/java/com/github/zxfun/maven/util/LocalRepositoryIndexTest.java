@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+
+public class LocalRepositoryIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testFind() throws Exception {
+    File dir = folder.newFolder("junit", "junit", "4.12");
+    File jar = new File(dir, "junit-4.12.jar");
+    assertTrue(jar.createNewFile());
+    assertTrue(new File(dir, "junit-4.12.jar.sha1").createNewFile());
+
+    LocalRepositoryIndex index = new LocalRepositoryIndex(folder.getRoot());
+    assertFalse(index.isReady());
+    assertEquals(jar, index.find("junit/junit/4.12/junit-4.12.jar"));
+    index.build();
+    assertTrue(index.isReady());
+    assertEquals(jar, index.find("junit/junit/4.12/junit-4.12.jar"));
+    assertNull(index.find("junit/junit/4.12/junit-4.12.pom"));
+
+    assertTrue(jar.delete());
+    assertNull(index.find("junit/junit/4.12/junit-4.12.jar"));
+  }
+
+  @Test
+  public void testMissingRepository() throws Exception {
+    LocalRepositoryIndex index = new LocalRepositoryIndex(new File(folder.getRoot(), "missing"));
+    index.build();
+    assertTrue(index.isReady());
+    assertNull(index.find("junit/junit/4.12/junit-4.12.jar"));
+  }
+}
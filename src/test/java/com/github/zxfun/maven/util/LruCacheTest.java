@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class LruCacheTest {
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    LruCache<String, Integer> cache = new LruCache<String, Integer>(2);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    cache.put("c", 3);
+    assertEquals(2, cache.size());
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+    assertEquals(1, cache.evictions());
+  }
+
+  @Test
+  public void testBoundedRepositoryCache() throws Exception {
+    BoundedRepositoryCache cache = new BoundedRepositoryCache(1);
+    cache.put(null, "a", "1");
+    cache.put(null, "b", "2");
+    assertNull(cache.get(null, "a"));
+    assertEquals("2", cache.get(null, "b"));
+    cache.put(null, "b", null);
+    assertEquals(0, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() throws Exception {
+    new LruCache<String, String>(0);
+  }
+}
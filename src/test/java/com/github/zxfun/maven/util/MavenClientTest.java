@@ -0,0 +1,567 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class MavenClientTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testIndependentClients() throws Exception {
+    MavenClient first = new MavenClient(config(remote("first", "1.0"), folder.newFolder("local-first")));
+    MavenClient second = new MavenClient(config(remote("second", "2.0"), folder.newFolder("local-second")));
+    try {
+      assertEquals("[1.0]", first.allVersions("com.example", "lib").toString());
+      assertEquals("[2.0]", second.allVersions("com.example", "lib").toString());
+
+      Artifact artifact = first.resolveArtifact(new DefaultArtifact("com.example:lib:1.0"));
+      assertNotNull(artifact);
+      assertEquals(new File(folder.getRoot(), "local-first/com/example/lib/1.0/lib-1.0.jar"), artifact.getFile());
+      assertNull(second.resolveArtifact(new DefaultArtifact("com.example:lib:1.0")));
+      assertFalse(new File(folder.getRoot(), "local-second/com/example/lib/1.0/lib-1.0.jar").exists());
+    } finally {
+      first.close();
+      second.close();
+    }
+  }
+
+  @Test
+  public void testClosedClient() throws Exception {
+    MavenClient client = new MavenClient(config(graph(), folder.newFolder("local")));
+    DependencyRoot root = new DependencyRoot(new DefaultArtifact("com.example:a:1.0"));
+    assertEquals(4, client.allDependencies(Collections.singletonList(root)).getResults().get(root).size());
+    client.close();
+    try {
+      client.allDependencies(Collections.singletonList(root));
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("client is closed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testLocalArtifactWithoutRemote() throws Exception {
+    File local = folder.newFolder("local");
+    File jar = new File(local, "com/example/lib/1.0/lib-1.0.jar");
+    assertTrue(jar.getParentFile().mkdirs());
+    assertTrue(jar.createNewFile());
+    MavenClient client = new MavenClient(config("file:///nonexistent", local));
+    try {
+      assertEquals(jar, client.resolveArtifact(new DefaultArtifact("com.example:lib:1.0")).getFile());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testResolutionStats() throws Exception {
+    String remote = remote("remote", "1.0");
+    MavenClient client = new MavenClient(config(remote, folder.newFolder("local")));
+    try {
+      assertEquals("[1.0]", client.allVersions("com.example", "lib").toString());
+      assertNotNull(client.resolveArtifact(new DefaultArtifact("com.example:lib:1.0")));
+      assertNotNull(client.resolveArtifact(new DefaultArtifact("com.example:lib:1.0")));
+      assertEquals(1, client.allDependencies(new DefaultArtifact("com.example:lib:pom:1.0")).size());
+
+      ResolutionStats stats = client.resolutionStats();
+      // the jar, then the pom read by the collection
+      assertEquals(2, stats.getArtifactsDownloaded());
+      assertEquals(2, stats.getArtifactsResolvedLocally());
+      assertEquals(1, stats.getMetadataDownloaded());
+      RepositoryStats repository = stats.getRepositories().get(remote);
+      assertNotNull(stats.getRepositories().toString(), repository);
+      assertTrue(repository.getRequests() >= 3);
+      assertEquals(repository.getRequests(), repository.getLatency().getCount());
+      assertTrue(repository.getBytes() > 0);
+      assertEquals(repository.getBytes(), stats.getBytesDownloaded());
+      assertEquals(new HashSet<String>(Arrays.asList("artifact", "collect", "resolve", "versions")),
+          stats.getPhases().keySet());
+      assertEquals(1, stats.getPhases().get("collect").getCount());
+
+      client.resetResolutionStats();
+      assertEquals(0, client.resolutionStats().getArtifactsResolvedLocally());
+      assertTrue(client.resolutionStats().getRepositories().isEmpty());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testMetricsMXBean() throws Exception {
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.metrics.jmx", true);
+    values.put("maven.util.metrics.jmx-name", "test");
+    MavenClient client = new MavenClient(ConfigFactory.parseMap(values)
+        .withFallback(config(remote("remote", "1.0"), folder.newFolder("local"))));
+    ObjectName name = new ObjectName("com.github.zxfun.maven.util:type=ResolutionMetrics,name=\"test\"");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      assertNotNull(client.resolveArtifact(new DefaultArtifact("com.example:lib:1.0")));
+      assertEquals(1L, server.getAttribute(name, "ArtifactsDownloaded"));
+      assertTrue(server.getAttribute(name, "Stats") instanceof CompositeData);
+    } finally {
+      client.close();
+    }
+    assertFalse(server.isRegistered(name));
+  }
+
+  @Test
+  public void testTraverse() throws Exception {
+    File local = folder.newFolder("local");
+    MavenClient client = new MavenClient(config(graph(), local));
+    try {
+      final List<String> visited = new ArrayList<String>();
+      assertTrue(client.traverse(new DependencyRoot(new DefaultArtifact("com.example:a:1.0")),
+          new DependencyGraphVisitor() {
+            @Override
+            public boolean visit(DependencyNode node, List<DependencyNode> parents) {
+              assertNotNull(node.getArtifact().getFile());
+              StringBuilder path = new StringBuilder(node.getArtifact().getArtifactId());
+              for (DependencyNode parent : parents) {
+                path.append("<").append(parent.getArtifact().getArtifactId());
+              }
+              visited.add(path.toString());
+              return true;
+            }
+          }));
+      assertEquals(Arrays.asList("a", "b<a", "c<b<a", "d<a"), visited);
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testTraverseDepthLimitAndCollectOnly() throws Exception {
+    File local = folder.newFolder("local");
+    MavenClient client = new MavenClient(config(graph(), local));
+    try {
+      final List<String> visited = new ArrayList<String>();
+      TraversalOptions options = new TraversalOptions().setMaxDepth(1).setResolveArtifacts(false);
+      assertTrue(client.traverse(new DependencyRoot(new DefaultArtifact("com.example:a:1.0")), options,
+          new DependencyGraphVisitor() {
+            @Override
+            public boolean visit(DependencyNode node, List<DependencyNode> parents) {
+              assertNull(node.getArtifact().getFile());
+              assertTrue(node.getChildren().isEmpty() || parents.isEmpty());
+              visited.add(node.getArtifact().getArtifactId());
+              return true;
+            }
+          }));
+      assertEquals(Arrays.asList("a", "b", "d"), visited);
+      assertTrue(new File(local, "com/example/b/1.0/b-1.0.pom").isFile());
+      assertFalse(new File(local, "com/example/c/1.0/c-1.0.pom").exists());
+      assertFalse(new File(local, "com/example/a/1.0/a-1.0.jar").exists());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testTraverseEarlyStop() throws Exception {
+    File local = folder.newFolder("local");
+    MavenClient client = new MavenClient(config(graph(), local));
+    try {
+      final List<String> visited = new ArrayList<String>();
+      assertFalse(client.traverse(new DependencyRoot(new DefaultArtifact("com.example:a:1.0")),
+          new DependencyGraphVisitor() {
+            @Override
+            public boolean visit(DependencyNode node, List<DependencyNode> parents) {
+              visited.add(node.getArtifact().getArtifactId());
+              return visited.size() < 2;
+            }
+          }));
+      assertEquals(Arrays.asList("a", "b"), visited);
+      assertTrue(new File(local, "com/example/b/1.0/b-1.0.jar").isFile());
+      assertFalse(new File(local, "com/example/c/1.0/c-1.0.jar").exists());
+      assertFalse(new File(local, "com/example/d/1.0/d-1.0.jar").exists());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testParallelCollector() throws Exception {
+    File root = folder.newFolder("remote");
+    release(root, "app", "1.0", "lib:1.0:compile:-x", "util:1.0");
+    release(root, "lib", "1.0", "x:1.0", "core:1.0", "opt:1.0:compile:optional", "tst:1.0:test");
+    release(root, "util", "1.0", "core:2.0", "deep:1.0");
+    release(root, "deep", "1.0", "opt:1.0:compile:optional", "tst:1.0:test");
+    for (String artifactId : Arrays.asList("x", "opt", "tst")) {
+      release(root, artifactId, "1.0");
+    }
+    for (String version : Arrays.asList("1.0", "1.5", "2.0")) {
+      release(root, "core", version);
+    }
+    List<Dependency> managed = Collections.singletonList(managed("core:1.5", "compile"));
+    Artifact app = new DefaultArtifact("com.example:app:1.0");
+
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.collector.mode", "parallel");
+    MavenClient parallel = new MavenClient(ConfigFactory.parseMap(values)
+        .withFallback(config(root.toURI().toString(), folder.newFolder("local-parallel"))));
+    MavenClient sequential = new MavenClient(config(root.toURI().toString(), folder.newFolder("local-default")));
+    try {
+      Set<Artifact> expected = sequential.allDependencies(app, managed);
+      assertEquals("[app:1.0, core:1.5, deep:1.0, lib:1.0, util:1.0]", ids(expected));
+      assertEquals(ids(expected), ids(parallel.allDependencies(app, managed)));
+      assertEquals(ids(sequential.allDependencies(app)), ids(parallel.allDependencies(app)));
+    } finally {
+      parallel.close();
+      sequential.close();
+    }
+  }
+
+  @Test
+  public void testResolveIncrementally() throws Exception {
+    File remote = folder.newFolder("bom");
+    release(remote, "a", "1.0", "b:1.0", "e:1.0");
+    release(remote, "b", "1.0", "c:1.0");
+    release(remote, "c", "1.0");
+    release(remote, "c", "2.0");
+    release(remote, "e", "1.0", "f:1.0:test");
+    release(remote, "f", "1.0");
+    MavenClient client = new MavenClient(config(remote.toURI().toString(), folder.newFolder("local")));
+    try {
+      Artifact root = new DefaultArtifact("com.example:a:1.0");
+      IncrementalResult result = client.resolveIncrementally(
+          new DependencyRoot(root, Collections.singletonList(managed("z:1.0", null))));
+      assertEquals("[a:1.0, b:1.0, c:1.0, e:1.0]", ids(result.getArtifacts()));
+      assertEquals(result.getArtifacts(), result.getAdded());
+
+      // z is not in the graph
+      List<Dependency> managed = new ArrayList<Dependency>(Collections.singletonList(managed("z:2.0", null)));
+      result = client.resolveIncrementally(result, managed);
+      assertTrue(result.isReused());
+      assertEquals("[a:1.0, b:1.0, c:1.0, e:1.0]", ids(result.getArtifacts()));
+      assertTrue(result.getAdded().isEmpty() && result.getRemoved().isEmpty() && result.getChanged().isEmpty());
+      assertEquals(managed, result.getRoot().getManagedDependencies());
+
+      managed.add(managed("c:2.0", null));
+      result = client.resolveIncrementally(result, managed);
+      assertFalse(result.isReused());
+      assertEquals(client.allDependencies(root, managed), result.getArtifacts());
+      assertEquals("[c:2.0]", ids(result.getChanged().values()));
+      assertEquals("[c:1.0]", ids(result.getChanged().keySet()));
+      assertTrue(result.getAdded().isEmpty() && result.getRemoved().isEmpty());
+
+      // f is filtered out as a test dependency before management, but managing its scope brings it in
+      managed.add(managed("f:1.0", "compile"));
+      result = client.resolveIncrementally(result, managed);
+      assertFalse(result.isReused());
+      assertEquals(client.allDependencies(root, managed), result.getArtifacts());
+      assertEquals("[f:1.0]", ids(result.getAdded()));
+
+      managed.remove(1);
+      result = client.resolveIncrementally(result, managed);
+      assertEquals("[a:1.0, b:1.0, c:1.0, e:1.0, f:1.0]", ids(result.getArtifacts()));
+      assertEquals("[c:2.0]", ids(result.getChanged().keySet()));
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testRouting() throws Exception {
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.remote-repositories.broken", "http://127.0.0.1:1/maven2");
+    values.put("maven.util.remote-repositories.routing.enabled", true);
+    values.put("maven.util.remote-repositories.routing.failure-threshold", 2);
+    MavenClient client = new MavenClient(
+        ConfigFactory.parseMap(values).withFallback(config(graph(), folder.newFolder("local"))));
+    try {
+      assertEquals(2, client.remoteRepositories().size());
+      for (int i = 0; i < 3; i++) {
+        assertNull(client.resolveArtifact(new DefaultArtifact("com.example:missing:1.0")));
+      }
+      List<RepositoryHealth> health = client.repositoryHealth();
+      assertEquals(2, health.size());
+      assertFalse(health.get(0).isTripped());
+      assertTrue(health.get(1).getUrl().startsWith("http://127.0.0.1:1/"));
+      assertTrue(health.get(1).isTripped());
+      assertEquals(2, health.get(1).getConsecutiveFailures());
+      assertEquals(4, client.allDependencies(new DefaultArtifact("com.example:a:1.0")).size());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testVersionCacheSkipsFailedRepositories() throws Exception {
+    String remote = remote("remote", "1.0");
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.version-cache.enabled", true);
+    MavenClient client = new MavenClient(
+        ConfigFactory.parseMap(values).withFallback(config(remote, folder.newFolder("local"))));
+    try {
+      assertEquals("[1.0]", client.allVersions("com.example", "lib").toString());
+      assertEquals("[]", client.allVersions("com.example", "missing").toString());
+      assertEquals(2, client.versionCacheStats().getSize());
+    } finally {
+      client.close();
+    }
+
+    values.put("maven.util.remote-repositories.broken", "http://127.0.0.1:1/maven2");
+    client = new MavenClient(ConfigFactory.parseMap(values).withFallback(config(remote, folder.newFolder("local2"))));
+    try {
+      assertEquals("[1.0]", client.allVersions("com.example", "lib").toString());
+      assertEquals("[]", client.allVersions("com.example", "missing").toString());
+      assertEquals(0, client.versionCacheStats().getSize());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testRoutingWithResolutionCache() throws Exception {
+    File cache = folder.newFolder("cache");
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.remote-repositories.broken", "http://127.0.0.1:1/maven2");
+    values.put("maven.util.remote-repositories.routing.enabled", true);
+    values.put("maven.util.resolution-cache.enabled", true);
+    values.put("maven.util.resolution-cache.directory", cache.getAbsolutePath());
+    MavenClient client = new MavenClient(
+        ConfigFactory.parseMap(values).withFallback(config(graph(), folder.newFolder("local"))));
+    try {
+      // repositories are searched first while unused, and the broken one last once it failed
+      Set<List<String>> orders = new HashSet<List<String>>();
+      for (int i = 0; i < 3; i++) {
+        List<String> order = new ArrayList<String>();
+        for (RepositoryHealth health : client.repositoryHealth()) {
+          order.add(health.getUrl());
+        }
+        orders.add(order);
+        assertEquals(4, client.allDependencies(new DefaultArtifact("com.example:a:1.0")).size());
+      }
+      assertEquals(2, orders.size());
+      assertEquals(1, cache.list((dir, name) -> name.endsWith(".bin")).length);
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testRepositoryPolicies() throws Exception {
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.remote-repositories.internal.url", "https://repo.example.com/snapshots");
+    values.put("maven.util.remote-repositories.internal.releases.enabled", true);
+    values.put("maven.util.remote-repositories.internal.snapshots.update-policy", "interval:15");
+    values.put("maven.util.repository-policy.releases.checksum-policy", "fail");
+    MavenClient client = new MavenClient(
+        ConfigFactory.parseMap(values).withFallback(config("file:///nonexistent", folder.newFolder("local"))));
+    try {
+      Map<String, RemoteRepository> repositories = new HashMap<String, RemoteRepository>();
+      for (RemoteRepository repository : client.remoteRepositories()) {
+        repositories.put(repository.getId(), repository);
+      }
+      RemoteRepository central = repositories.get("maven_central");
+      assertTrue(central.getPolicy(false).isEnabled());
+      assertFalse(central.getPolicy(true).isEnabled());
+      RemoteRepository internal = repositories.get("internal");
+      assertEquals("https://repo.example.com/snapshots", internal.getUrl());
+      assertTrue(internal.getPolicy(false).isEnabled());
+      assertEquals("never", internal.getPolicy(false).getUpdatePolicy());
+      assertEquals("fail", internal.getPolicy(false).getChecksumPolicy());
+      assertTrue(internal.getPolicy(true).isEnabled());
+      assertEquals("interval:15", internal.getPolicy(true).getUpdatePolicy());
+      assertEquals("warn", internal.getPolicy(true).getChecksumPolicy());
+    } finally {
+      client.close();
+    }
+
+    values.put("maven.util.remote-repositories.internal.snapshots.update-policy", "hourly");
+    try {
+      new MavenClient(ConfigFactory.parseMap(values));
+      fail();
+    } catch (ConfigException.BadValue e) {
+      assertTrue(e.getMessage().contains("hourly"));
+    }
+  }
+
+  @Test
+  public void testSnapshotRefresh() throws Exception {
+    File root = folder.newFolder("snapshots");
+    File metadata = new File(root, "com/example/lib/maven-metadata.xml");
+    assertTrue(metadata.getParentFile().mkdirs());
+    write(metadata, versions("1.0-SNAPSHOT"));
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.local-repository", folder.newFolder("local").getAbsolutePath());
+    values.put("maven.util.local-repository-index", false);
+    values.put("maven.util.remote-repositories.maven_central.url", root.toURI().toString());
+    values.put("maven.util.remote-repositories.maven_central.snapshots.enabled", true);
+    values.put("maven.util.snapshot-refresh.enabled", true);
+    MavenClient client = new MavenClient(ConfigFactory.parseMap(values));
+    try {
+      assertEquals("always", client.remoteRepositories().get(0).getPolicy(true).getUpdatePolicy());
+      assertEquals("[1.0-SNAPSHOT]", client.allVersions("com.example", "lib", true).toString());
+
+      write(metadata, versions("1.0-SNAPSHOT", "1.1-SNAPSHOT"));
+      // served from the local repository until refreshed
+      assertEquals("[1.0-SNAPSHOT]", client.allVersions("com.example", "lib", true).toString());
+      client.refreshSnapshotMetadata();
+      assertEquals("[1.0-SNAPSHOT, 1.1-SNAPSHOT]", client.allVersions("com.example", "lib", true).toString());
+    } finally {
+      client.close();
+    }
+  }
+
+  @Test
+  public void testConcurrentDownloads() throws Exception {
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.download.threads", 4);
+    File local = folder.newFolder("local");
+    MavenClient client = new MavenClient(ConfigFactory.parseMap(values).withFallback(config(graph(), local)));
+    try {
+      assertEquals(4, client.newSession().getConfigProperties().get("aether.connector.basic.threads"));
+      assertEquals(4, client.allDependencies(new DefaultArtifact("com.example:a:1.0")).size());
+      assertTrue(client.downloads().isEmpty());
+      for (String artifactId : Arrays.asList("a", "b", "c", "d")) {
+        File dir = new File(local, "com/example/" + artifactId + "/1.0");
+        assertTrue(new File(dir, artifactId + "-1.0.jar").isFile());
+        for (String name : dir.list()) {
+          assertFalse(name, name.endsWith(".part"));
+        }
+      }
+    } finally {
+      client.close();
+    }
+  }
+
+  private static String versions(String... versions) {
+    StringBuilder metadata = new StringBuilder(
+        "<metadata><groupId>com.example</groupId><artifactId>lib</artifactId><versioning><versions>");
+    for (String version : versions) {
+      metadata.append("<version>").append(version).append("</version>");
+    }
+    return metadata.append("</versions></versioning></metadata>").toString();
+  }
+
+  private static Dependency managed(String coordinates, String scope) {
+    return new Dependency(new DefaultArtifact("com.example:" + coordinates), scope);
+  }
+
+  private static String ids(Collection<Artifact> artifacts) {
+    Set<String> ids = new TreeSet<String>();
+    for (Artifact artifact : artifacts) {
+      ids.add(artifact.getArtifactId() + ":" + artifact.getVersion());
+    }
+    return ids.toString();
+  }
+
+  private Config config(String remote, File local) {
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("maven.util.local-repository", local.getAbsolutePath());
+    values.put("maven.util.local-repository-index", false);
+    values.put("maven.util.remote-repositories.maven_central", remote);
+    return ConfigFactory.parseMap(values);
+  }
+
+  private String remote(String name, String version) throws Exception {
+    File root = folder.newFolder(name);
+    File dir = new File(root, "com/example/lib/" + version);
+    assertTrue(dir.mkdirs());
+    write(new File(dir, "lib-" + version + ".pom"), "<project><modelVersion>4.0.0</modelVersion>"
+        + "<groupId>com.example</groupId><artifactId>lib</artifactId><version>" + version + "</version></project>");
+    write(new File(dir, "lib-" + version + ".jar"), "jar");
+    write(new File(root, "com/example/lib/maven-metadata.xml"), "<metadata><groupId>com.example</groupId>"
+        + "<artifactId>lib</artifactId><versioning><versions><version>" + version + "</version></versions>"
+        + "</versioning></metadata>");
+    return root.toURI().toString();
+  }
+
+  /**
+   * a depends on b and d, b depends on c
+   */
+  private String graph() throws Exception {
+    File root = folder.newFolder("graph");
+    artifact(root, "a", "b", "d");
+    artifact(root, "b", "c");
+    artifact(root, "c");
+    artifact(root, "d");
+    return root.toURI().toString();
+  }
+
+  private static void artifact(File root, String artifactId, String... dependencies) throws Exception {
+    String[] versioned = new String[dependencies.length];
+    for (int i = 0; i < dependencies.length; i++) {
+      versioned[i] = dependencies[i] + ":1.0";
+    }
+    release(root, artifactId, "1.0", versioned);
+  }
+
+  /**
+   * @param dependencies as {@code artifactId:version[:scope[:optional]]}, followed by {@code -artifactId} for every
+   *                     exclusion
+   */
+  private static void release(File root, String artifactId, String version, String... dependencies)
+      throws Exception {
+    File dir = new File(root, "com/example/" + artifactId + "/" + version);
+    assertTrue(dir.mkdirs());
+    StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+        + "<artifactId>" + artifactId + "</artifactId><version>" + version + "</version><dependencies>");
+    for (String dependency : dependencies) {
+      String[] parts = dependency.split(":");
+      pom.append("<dependency><groupId>com.example</groupId><artifactId>").append(parts[0])
+          .append("</artifactId><version>").append(parts[1]).append("</version>");
+      if (parts.length > 2) {
+        pom.append("<scope>").append(parts[2]).append("</scope>");
+      }
+      if (parts.length > 3 && !parts[3].startsWith("-")) {
+        pom.append("<optional>").append(parts[3].equals("optional")).append("</optional>");
+      }
+      pom.append("<exclusions>");
+      for (String part : parts) {
+        if (part.startsWith("-")) {
+          pom.append("<exclusion><groupId>com.example</groupId><artifactId>").append(part.substring(1))
+              .append("</artifactId></exclusion>");
+        }
+      }
+      pom.append("</exclusions></dependency>");
+    }
+    write(new File(dir, artifactId + "-" + version + ".pom"), pom.append("</dependencies></project>").toString());
+    write(new File(dir, artifactId + "-" + version + ".jar"), artifactId);
+  }
+
+  private static void write(File file, String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
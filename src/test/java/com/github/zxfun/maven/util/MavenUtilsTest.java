@@ -20,12 +20,16 @@ import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.version.Version;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -41,6 +45,15 @@ public class MavenUtilsTest {
     }
   }
 
+  @Test
+  public void testAllVersionsWithPrefix() throws Exception {
+    List<Version> versions = MavenUtils.allVersions("org.apache.maven", "maven-core", "3.3");
+    assertTrue(versions.size() > 0);
+    for (Version version : versions) {
+      assertTrue(version.toString().startsWith("3.3"));
+    }
+  }
+
   @Test
   public void testAllSnapshotVersions() throws Exception {
     List<Version> versions = MavenUtils.allVersions("org.apache.maven", "maven-core", true);
@@ -60,6 +73,33 @@ public class MavenUtilsTest {
     assertTrue(dependencies.size() > 0);
   }
 
+  @Test
+  public void testAllDependenciesBatch() throws Exception {
+    DependencyRoot junit = new DependencyRoot(new DefaultArtifact("junit:junit:4.12"));
+    DependencyRoot missing = new DependencyRoot(new DefaultArtifact("com.github.zxfun:does-not-exist:1.0"));
+    BatchResult result = MavenUtils.allDependencies(Arrays.asList(junit, missing, junit));
+    assertEquals(1, result.getResults().size());
+    assertEquals(MavenUtils.allDependencies(junit.getArtifact()), result.getResults().get(junit));
+    assertEquals(1, result.getFailures().size());
+    assertTrue(result.getFailures().containsKey(missing));
+    assertFalse(result.isSuccessful());
+  }
+
+  @Test
+  public void testAsync() throws Exception {
+    Set<Artifact> dependencies = MavenUtils.allDependenciesAsync(new DefaultArtifact("junit:junit:4.12"))
+        .get(60, TimeUnit.SECONDS);
+    assertEquals(MavenUtils.allDependencies(new DefaultArtifact("junit:junit:4.12")), dependencies);
+    assertFalse(MavenUtils.allVersionsAsync("org.apache.maven", "maven-core").get(60, TimeUnit.SECONDS).isEmpty());
+    try {
+      MavenUtils.resolveArtifactAsync(new DefaultArtifact("com.github.zxfun:does-not-exist:1.0"))
+          .get(60, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ArtifactResolutionException);
+    }
+  }
+
   @Test
   public void testMavenDependency2AetherDependency() throws Exception {
     org.apache.maven.model.Dependency mavenDependency = new org.apache.maven.model.Dependency();
@@ -123,4 +163,147 @@ public class MavenUtilsTest {
 
     assertEquals("4.12", MavenUtils.merge(dependency, managedDependency).getVersion());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testMergeSkipsFailingSetter() throws Exception {
+    Bean base = new Bean();
+    base.setName("base");
+    Bean target = new Bean();
+    target.setName("target");
+    target.setVersion("1.0");
+    target.broken = "value";
+
+    Bean merged = MavenUtils.merge(base, target);
+    assertNotSame(base, merged);
+    assertEquals("target", merged.getName());
+    assertEquals("1.0", merged.getVersion());
+    assertNull(merged.getBroken());
+  }
+
+  @Test
+  public void testResolveAll() throws Exception {
+    org.apache.maven.model.Dependency junit = new org.apache.maven.model.Dependency();
+    junit.setGroupId("junit");
+    junit.setArtifactId("junit");
+    junit.setVersion("${junit.version}");
+    org.apache.maven.model.Dependency hamcrest = new org.apache.maven.model.Dependency();
+    hamcrest.setGroupId("${hamcrest.groupId}");
+    hamcrest.setArtifactId("hamcrest-core");
+    hamcrest.setVersion("${hamcrest.version}");
+
+    Properties props = new Properties();
+    props.put("junit.version", "4.12");
+    props.put("hamcrest.groupId", "org.hamcrest");
+
+    List<org.apache.maven.model.Dependency> resolved = MavenUtils.resolveAll(Arrays.asList(junit, hamcrest), props);
+    assertEquals(2, resolved.size());
+    assertEquals("4.12", resolved.get(0).getVersion());
+    assertEquals("org.hamcrest", resolved.get(1).getGroupId());
+    assertEquals("${hamcrest.version}", resolved.get(1).getVersion());
+    assertEquals("${junit.version}", junit.getVersion());
+  }
+
+  @Test
+  public void testMergeExclusions() throws Exception {
+    org.apache.maven.model.Dependency dependency = new org.apache.maven.model.Dependency();
+    dependency.setArtifactId("junit");
+    dependency.setGroupId("junit");
+
+    org.apache.maven.model.Dependency managedDependency = new org.apache.maven.model.Dependency();
+    managedDependency.setArtifactId("junit");
+    managedDependency.setGroupId("junit");
+    org.apache.maven.model.Exclusion exclusion = new org.apache.maven.model.Exclusion();
+    exclusion.setGroupId("org.hamcrest");
+    exclusion.setArtifactId("hamcrest-core");
+    managedDependency.addExclusion(exclusion);
+
+    org.apache.maven.model.Dependency merged = MavenUtils.merge(dependency, managedDependency);
+    assertEquals(1, merged.getExclusions().size());
+    assertEquals("hamcrest-core", merged.getExclusions().get(0).getArtifactId());
+    assertTrue(dependency.getExclusions().isEmpty());
+  }
+
+  @Test
+  public void testMavenModel2AetherDependencies() throws Exception {
+    org.apache.maven.model.Model model = new org.apache.maven.model.Model();
+    model.addProperty("junit.version", "4.12");
+    org.apache.maven.model.Exclusion exclusion = new org.apache.maven.model.Exclusion();
+    exclusion.setGroupId("org.hamcrest");
+    exclusion.setArtifactId("hamcrest-core");
+
+    org.apache.maven.model.Dependency managedJunit = new org.apache.maven.model.Dependency();
+    managedJunit.setGroupId("junit");
+    managedJunit.setArtifactId("junit");
+    managedJunit.setVersion("${junit.version}");
+    managedJunit.setScope("compile");
+    managedJunit.addExclusion(exclusion);
+    org.apache.maven.model.Dependency bom = new org.apache.maven.model.Dependency();
+    bom.setGroupId("com.example");
+    bom.setArtifactId("bom");
+    bom.setVersion("1.0");
+    bom.setType("pom");
+    bom.setScope("import");
+    org.apache.maven.model.DependencyManagement dependencyManagement = new org.apache.maven.model.DependencyManagement();
+    dependencyManagement.addDependency(managedJunit);
+    dependencyManagement.addDependency(bom);
+    model.setDependencyManagement(dependencyManagement);
+
+    org.apache.maven.model.Dependency junit = new org.apache.maven.model.Dependency();
+    junit.setGroupId("junit");
+    junit.setArtifactId("junit");
+    junit.setScope("test");
+    model.addDependency(junit);
+
+    ModelDependencies dependencies = MavenUtils.mavenModel2AetherDependencies(model);
+    assertEquals(1, dependencies.getManagedDependencies().size());
+    assertEquals(1, dependencies.getDependencies().size());
+    Dependency direct = dependencies.getDependencies().get(0);
+    Dependency managed = dependencies.getManagedDependencies().get(0);
+    assertEquals("4.12", direct.getArtifact().getVersion());
+    assertEquals("test", direct.getScope());
+    assertEquals("compile", managed.getScope());
+    assertSame(managed.getArtifact(), direct.getArtifact());
+    assertSame(managed.getExclusions().iterator().next(), direct.getExclusions().iterator().next());
+  }
+
+  public static class Bean implements Cloneable {
+
+    private String name;
+    private String version;
+    private String broken;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    public void setVersion(String version) {
+      this.version = version;
+    }
+
+    public String getBroken() {
+      return broken;
+    }
+
+    public void setBroken(String broken) {
+      throw new UnsupportedOperationException("broken");
+    }
+
+    @Override
+    public Bean clone() {
+      try {
+        return (Bean) super.clone();
+      } catch (CloneNotSupportedException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+public class RepositoryRouterTest {
+
+  private static final RemoteRepository SLOW = repository("slow");
+  private static final RemoteRepository FAST = repository("fast");
+  private static final RemoteRepository UNUSED = repository("unused");
+
+  private final List<RepositoryRouter> routers = new ArrayList<RepositoryRouter>();
+
+  @After
+  public void tearDown() {
+    for (RepositoryRouter router : routers) {
+      router.shutdown();
+    }
+  }
+
+  @Test
+  public void testOrder() throws Exception {
+    RepositoryRouter router = router(0, 0);
+    transfer(router, SLOW, 30, null);
+    transfer(router, FAST, 0, null);
+    transfer(router, FAST, 0, new ArtifactNotFoundException(new DefaultArtifact("g:a:1.0"), FAST));
+
+    assertEquals(Arrays.asList(UNUSED, FAST, SLOW), router.order(Arrays.asList(SLOW, FAST, UNUSED)));
+    List<RepositoryHealth> health = router.health(Arrays.asList(SLOW, FAST));
+    assertEquals(FAST.getUrl(), health.get(0).getUrl());
+    assertEquals(0, health.get(0).getErrorRate(), 0);
+    assertTrue(health.get(1).getLatencyMillis() >= 30);
+  }
+
+  @Test
+  public void testErrorRate() throws Exception {
+    RepositoryRouter router = router(0, 0);
+    transfer(router, SLOW, 10, null);
+    transfer(router, FAST, 0, new IOException("connection reset"));
+    transfer(router, FAST, 0, new IOException("connection reset"));
+    transfer(router, FAST, 0, new IOException("connection reset"));
+
+    RepositoryHealth health = router.health(Arrays.asList(FAST)).get(0);
+    assertEquals(1 - 0.5 * 0.5 * 0.5, health.getErrorRate(), 0.0001);
+    assertEquals(3, health.getConsecutiveFailures());
+    assertFalse(health.isTripped());
+  }
+
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    RepositoryRouter router = router(2, 0);
+    transfer(router, SLOW, 30, null);
+    transfer(router, FAST, 0, new IOException("connection refused"));
+    transfer(router, FAST, 0, new IOException("connection refused"));
+
+    assertTrue(router.health(Arrays.asList(FAST)).get(0).isTripped());
+    assertEquals(Arrays.asList(SLOW, FAST), router.order(Arrays.asList(FAST, SLOW)));
+    try {
+      transfer(router, FAST, 0, null);
+      fail("Transfer not refused");
+    } catch (TransferCancelledException e) {
+      // expected
+    }
+
+    Thread.sleep(150);
+    // one trial transfer is let through, the others are still refused until it completes
+    TransferListener listener = router.transferListener();
+    TransferEvent.Builder trial = event(FAST);
+    listener.transferInitiated(trial.resetType(TransferEvent.EventType.INITIATED).build());
+    try {
+      transfer(router, FAST, 0, null);
+      fail("Transfer not refused");
+    } catch (TransferCancelledException e) {
+      // expected
+    }
+    listener.transferSucceeded(trial.resetType(TransferEvent.EventType.SUCCEEDED).build());
+
+    assertFalse(router.health(Arrays.asList(FAST)).get(0).isTripped());
+    assertEquals(Arrays.asList(FAST, SLOW), router.order(Arrays.asList(FAST, SLOW)));
+  }
+
+  @Test
+  public void testHedging() throws Exception {
+    RepositoryRouter router = router(0, TimeUnit.MILLISECONDS.toNanos(50));
+    final AtomicInteger calls = new AtomicInteger();
+    Transporter transporter = router.hedging(new FakeTransporter() {
+      @Override
+      public void get(GetTask task) throws Exception {
+        if (calls.incrementAndGet() == 1) {
+          Thread.sleep(2000);
+          write(task, "slow");
+        } else {
+          task.setChecksum("SHA-1", "0123");
+          write(task, "fast");
+        }
+      }
+    }, FAST);
+
+    GetTask task = new GetTask(URI.create("com/example/lib/maven-metadata.xml"));
+    long start = System.nanoTime();
+    transporter.get(task);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    assertEquals("fast", new String(task.getDataBytes(), StandardCharsets.UTF_8));
+    assertEquals("0123", task.getChecksums().get("SHA-1"));
+    assertEquals(1, router.health(Arrays.asList(FAST)).get(0).getHedgedRequests());
+
+    // artifacts are not hedged
+    calls.set(1);
+    task = new GetTask(URI.create("com/example/lib/1.0/lib-1.0.jar"));
+    transporter.get(task);
+    assertEquals("fast", new String(task.getDataBytes(), StandardCharsets.UTF_8));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testHedgingFailure() throws Exception {
+    RepositoryRouter router = router(0, TimeUnit.MILLISECONDS.toNanos(50));
+    Transporter transporter = router.hedging(new FakeTransporter() {
+      @Override
+      public void get(GetTask task) throws Exception {
+        throw new IOException("not found");
+      }
+    }, FAST);
+    try {
+      transporter.get(new GetTask(URI.create("com/example/lib/maven-metadata.xml")));
+      fail("Failure not reported");
+    } catch (IOException e) {
+      assertEquals("not found", e.getMessage());
+    }
+    assertEquals(0, router.health(Arrays.asList(FAST)).get(0).getHedgedRequests());
+  }
+
+  private RepositoryRouter router(int failureThreshold, long hedgeDelayNanos) {
+    RepositoryRouter router =
+        new RepositoryRouter(0.5, failureThreshold, TimeUnit.MILLISECONDS.toNanos(100), hedgeDelayNanos);
+    routers.add(router);
+    return router;
+  }
+
+  private static void transfer(RepositoryRouter router, RemoteRepository repository, long millis, Exception failure)
+      throws Exception {
+    TransferListener listener = router.transferListener();
+    TransferEvent.Builder event = event(repository);
+    listener.transferInitiated(event.resetType(TransferEvent.EventType.INITIATED).build());
+    Thread.sleep(millis);
+    if (failure == null) {
+      listener.transferStarted(event.resetType(TransferEvent.EventType.STARTED).build());
+      listener.transferSucceeded(event.resetType(TransferEvent.EventType.SUCCEEDED).build());
+    } else {
+      listener.transferFailed(event.resetType(TransferEvent.EventType.FAILED).setException(failure).build());
+    }
+  }
+
+  private static TransferEvent.Builder event(RemoteRepository repository) {
+    return new TransferEvent.Builder(new DefaultRepositorySystemSession(),
+        new TransferResource(repository.getUrl(), "com/example/lib/1.0/lib-1.0.jar", null, null));
+  }
+
+  private static RemoteRepository repository(String id) {
+    return new RemoteRepository.Builder(id, "default", "http://" + id + ".example.com/maven2").build();
+  }
+
+  private static void write(GetTask task, String content) throws IOException {
+    OutputStream out = task.newOutputStream();
+    try {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    } finally {
+      out.close();
+    }
+  }
+
+  private abstract static class FakeTransporter implements Transporter {
+
+    @Override
+    public int classify(Throwable error) {
+      return ERROR_OTHER;
+    }
+
+    @Override
+    public void peek(PeekTask task) {
+    }
+
+    @Override
+    public void put(PutTask task) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+  }
+
+}
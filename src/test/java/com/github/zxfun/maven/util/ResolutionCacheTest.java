@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class ResolutionCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<RemoteRepository> repositories = Collections.singletonList(
+      new RemoteRepository.Builder("central", "default", "https://repo1.maven.org/maven2").build());
+
+  private ResolutionCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new ResolutionCache(folder.newFolder("cache"), 1024 * 1024);
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Artifact junit = artifact("junit:junit:4.12");
+    Artifact hamcrest = artifact("org.hamcrest:hamcrest-core:1.3");
+    DependencyNode root = node(junit, node(hamcrest));
+    Set<Artifact> artifacts = new HashSet<Artifact>(Arrays.asList(junit, hamcrest));
+
+    String key = cache.key(junit, Collections.<Dependency>emptyList(), null, repositories);
+    assertNotNull(key);
+    assertNull(cache.get(key));
+    cache.put(key, root, artifacts);
+    assertTrue(cache.size() > 0);
+
+    ResolutionCache.Entry entry = cache.get(key);
+    assertNotNull(entry);
+    assertEquals(artifacts, entry.getArtifacts());
+    assertEquals(junit, entry.getRoot().getArtifact());
+    assertEquals(hamcrest, entry.getRoot().getChildren().get(0).getArtifact());
+    assertEquals("compile", entry.getRoot().getChildren().get(0).getDependency().getScope());
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    Artifact junit = new DefaultArtifact("junit:junit:4.12");
+    List<Dependency> managed = Collections.singletonList(
+        new Dependency(new DefaultArtifact("org.hamcrest:hamcrest-core:1.1"), "compile"));
+    String key = cache.key(junit, Collections.<Dependency>emptyList(), new MavenUtils.EmptyDependencyFilter(), repositories);
+    assertEquals(key, cache.key(junit, Collections.<Dependency>emptyList(), null, repositories));
+    assertNotEquals(key, cache.key(junit, managed, null, repositories));
+    assertNotEquals(key, cache.key(junit, Collections.<Dependency>emptyList(), null,
+        Collections.<RemoteRepository>emptyList()));
+    assertNull(cache.key(new DefaultArtifact("junit:junit:4.13-SNAPSHOT"),
+        Collections.<Dependency>emptyList(), null, repositories));
+    assertNull(cache.key(new DefaultArtifact("junit:junit:[4.0,)"),
+        Collections.<Dependency>emptyList(), null, repositories));
+    assertNull(cache.key(junit, Collections.<Dependency>emptyList(), new ScopeDependencyFilter("test"), repositories));
+    assertNull(cache.key(junit, Collections.<Dependency>emptyList(), new MavenUtils.EmptyDependencyFilter() {
+      @Override
+      public boolean accept(DependencyNode node, List<DependencyNode> parents) {
+        return false;
+      }
+    }, repositories));
+  }
+
+  @Test
+  public void testSnapshotsAreNotStored() throws Exception {
+    Artifact root = artifact("com.example:app:1.0");
+    Artifact snapshot = artifact("com.example:lib:1.0-SNAPSHOT");
+    String key = cache.key(root, Collections.<Dependency>emptyList(), null, repositories);
+    cache.put(key, node(root, node(snapshot)), new HashSet<Artifact>(Arrays.asList(root, snapshot)));
+    assertNull(cache.get(key));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testVerify() throws Exception {
+    Artifact junit = artifact("junit:junit:4.12");
+    String key = cache.key(junit, Collections.<Dependency>emptyList(), null, repositories);
+    cache.put(key, node(junit), Collections.singleton(junit));
+    assertEquals(0, cache.verify());
+    assertTrue(junit.getFile().delete());
+    assertEquals(1, cache.verify());
+    assertNull(cache.get(key));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    ResolutionCache small = new ResolutionCache(folder.newFolder("small"), 1);
+    Artifact junit = artifact("junit:junit:4.12");
+    String key = small.key(junit, Collections.<Dependency>emptyList(), null, repositories);
+    small.put(key, node(junit), Collections.singleton(junit));
+    assertNull(small.get(key));
+    assertEquals(0, small.size());
+  }
+
+  private Artifact artifact(String coordinates) throws Exception {
+    File file = folder.newFile(coordinates.replace(':', '_') + ".jar");
+    return new DefaultArtifact(coordinates).setFile(file);
+  }
+
+  private static DependencyNode node(Artifact artifact, DependencyNode... children) {
+    DefaultDependencyNode node = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+    node.setChildren(new ArrayList<DependencyNode>(Arrays.asList(children)));
+    return node;
+  }
+}
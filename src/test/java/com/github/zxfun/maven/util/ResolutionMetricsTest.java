@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class ResolutionMetricsTest {
+
+  @Test
+  public void testHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 98; i++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+    histogram.record(TimeUnit.SECONDS.toNanos(2));
+
+    TimerStats stats = histogram.stats();
+    assertEquals(100, stats.getCount());
+    assertEquals(2000, stats.getMaxMillis(), 0.001);
+    assertEquals(0.128, stats.getMedianMillis(), 0.001);
+    assertEquals(0.128, stats.getP90Millis(), 0.001);
+    assertEquals(8.192, stats.getP99Millis(), 0.001);
+    assertEquals(2000, stats.percentileMillis(1), 0.001);
+    assertEquals(98, stats.getBuckets()[7]);
+    assertEquals((98 * 0.1 + 5 + 2000) / 100, stats.getMeanMillis(), 0.001);
+  }
+
+  @Test
+  public void testEmptyHistogram() {
+    TimerStats stats = new LatencyHistogram().stats();
+    assertEquals(0, stats.getCount());
+    assertEquals(0, stats.getMeanMillis(), 0);
+    assertEquals(0, stats.getP99Millis(), 0);
+  }
+
+  @Test
+  public void testPhasesAndReset() {
+    ResolutionMetrics metrics = new ResolutionMetrics();
+    metrics.time("collect", TimeUnit.MILLISECONDS.toNanos(3));
+    metrics.time("collect", TimeUnit.MILLISECONDS.toNanos(1));
+    metrics.localHit();
+
+    ResolutionStats stats = metrics.getStats();
+    assertEquals(2, stats.getPhases().get("collect").getCount());
+    assertEquals(4, stats.getPhases().get("collect").getTotalMillis(), 0.001);
+    assertEquals(1, stats.getArtifactsResolvedLocally());
+    assertEquals(1, stats.getLocalHitRate(), 0);
+
+    metrics.reset();
+    assertTrue(metrics.getStats().getPhases().isEmpty());
+    assertEquals(0, metrics.getArtifactsResolvedLocally());
+  }
+
+  @Test
+  public void testResetDropsRunningTransfers() throws Exception {
+    ResolutionMetrics metrics = new ResolutionMetrics();
+    TransferResource resource = new TransferResource("http://repo/", "a/b/1.0/b-1.0.jar", null, null);
+    TransferEvent.Builder event = new TransferEvent.Builder(new DefaultRepositorySystemSession(), resource);
+    metrics.transferListener().transferInitiated(event.copy().setType(TransferEvent.EventType.INITIATED).build());
+
+    metrics.reset();
+    metrics.transferListener().transferSucceeded(event.copy().setType(TransferEvent.EventType.SUCCEEDED).build());
+    RepositoryStats repository = metrics.getStats().getRepositories().get("http://repo/");
+    assertEquals(0, repository.getRequests());
+    assertEquals(0, repository.getLatency().getCount());
+  }
+}
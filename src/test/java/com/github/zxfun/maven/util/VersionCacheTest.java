@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Zhuchen Wang
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.zxfun.maven.util;
+
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.Version;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class VersionCacheTest {
+
+  private final GenericVersionScheme scheme = new GenericVersionScheme();
+
+  @Test
+  public void testExpiry() throws Exception {
+    VersionCache cache = new VersionCache(10, 100, 10);
+    List<Version> versions = Arrays.asList(scheme.parseVersion("1.0"), scheme.parseVersion("1.1"));
+    cache.put("g", "a", false, versions, 0);
+    assertEquals(versions, cache.get("g", "a", false, 99));
+    assertNull(cache.get("g", "a", true, 99));
+    assertNull(cache.get("g", "a", false, 100));
+    assertEquals(1, cache.stats().getHits());
+    assertEquals(2, cache.stats().getMisses());
+    assertEquals(0, cache.stats().getSize());
+  }
+
+  @Test
+  public void testNegativeCaching() throws Exception {
+    VersionCache cache = new VersionCache(10, 100, 10);
+    cache.put("g", "missing", false, Collections.<Version>emptyList(), 0);
+    assertTrue(cache.get("g", "missing", false, 9).isEmpty());
+    assertNull(cache.get("g", "missing", false, 10));
+    assertEquals(1, cache.stats().getNegativeHits());
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    VersionCache cache = new VersionCache(1, 100, 100);
+    cache.put("g", "a", false, Collections.singletonList(scheme.parseVersion("1.0")), 0);
+    cache.put("g", "b", false, Collections.singletonList(scheme.parseVersion("1.0")), 0);
+    assertNull(cache.get("g", "a", false, 0));
+    assertNotNull(cache.get("g", "b", false, 0));
+    assertEquals(1, cache.stats().getEvictions());
+    cache.invalidate("g", "b");
+    assertNull(cache.get("g", "b", false, 0));
+  }
+}